@@ -1,27 +1,42 @@
 package org.dcsa.skernel.dataloader;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
 import org.dcsa.skernel.dataloader.csvloader.CsvDataloader;
 import org.dcsa.skernel.dataloader.flywayloader.FlywayDataloader;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Component
 public class Dataloader {
   private final DataloaderAppConfig appConfig;
   private final DataloaderConfig config;
+  private final DataloaderScheduler scheduler;
   private final Map<String, TypedDataloader> loaders;
+  private final ObjectProvider<DataloaderAutoload> autoload;
+  private final Map<String, Lock> sourceLocks = new ConcurrentHashMap<>();
 
-  public Dataloader(DataloaderAppConfig appConfig, DataloaderConfig config, CsvDataloader csvDataloader, FlywayDataloader flywayDataloader) {
+  public Dataloader(DataloaderAppConfig appConfig, DataloaderConfig config, DataloaderScheduler scheduler,
+                    CsvDataloader csvDataloader, FlywayDataloader flywayDataloader,
+                    ObjectProvider<DataloaderAutoload> autoload) {
     this.appConfig = appConfig;
     this.config = config;
+    this.scheduler = scheduler;
+    this.autoload = autoload;
     loaders = Map.of(
       "csv", csvDataloader,
       "flyway", flywayDataloader
@@ -30,13 +45,66 @@ public class Dataloader {
     log.trace("config={}", config);
   }
 
-  @EventListener(ApplicationReadyEvent.class)
+  /**
+   * Loads the autoload groups.
+   *
+   * @deprecated autoload is done by {@link DataloaderAutoload} on startup, this delegates to it
+   */
+  @Deprecated
   public void autoload() {
-    loadData(appConfig.getAutoload());
-    log.info("Autoload complete");
+    autoload.getObject().autoload();
   }
 
   public void loadData(Set<String> requestedGroups) {
+    loadData(requestedGroups, new DataloaderProgress("load"));
+  }
+
+  /**
+   * Loads the requested groups (and the groups they depend on) reporting progress per source.
+   */
+  public void loadData(Set<String> requestedGroups, DataloaderProgress progress) {
+    loadData(requestedGroups, progress, appConfig.getMaxParallelism());
+  }
+
+  void loadData(Set<String> requestedGroups, DataloaderProgress progress, int maxParallelism) {
+    progress.start();
+    try {
+      List<DataloaderSource> selected = resolveSources(requestedGroups);
+      selected.forEach(source -> progress.step(stepName(source)));
+      Map<DataloaderSource, List<DataloaderSource>> dependencies = dependencies(selected);
+      scheduler.run(selected, dependencies::get,
+        source -> loadSource(source, progress.step(stepName(source))), maxParallelism);
+      progress.complete();
+    } catch (RuntimeException e) {
+      progress.fail(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Parses and validates the requested groups (and the groups they depend on) without loading anything.
+   * Errors are collected in the report rather than aborting the dry run.
+   */
+  public DataloaderDryRun.Report dryRun(Set<String> requestedGroups, DataloaderDryRun dryRun) {
+    List<DataloaderSource> selected = resolveSources(requestedGroups);
+    Map<DataloaderSource, List<DataloaderSource>> dependencies = dependencies(selected);
+    scheduler.run(selected, dependencies::get, source -> {
+      Lock lock = sourceLocks.computeIfAbsent(stepName(source), key -> new ReentrantLock());
+      lock.lock();
+      try {
+        log.debug("Dry run of {} source {} {}", source.type(), source.path(), source.groups());
+        loaders.get(source.type()).dryRun(source.withCsvDefaults(config.getDefaults().csv()), dryRun);
+      } finally {
+        lock.unlock();
+      }
+    }, appConfig.getMaxParallelism());
+    return dryRun.report();
+  }
+
+  /**
+   * Returns the sources to load for the requested groups including the sources of groups they depend on.
+   */
+  public List<DataloaderSource> resolveSources(Set<String> requestedGroups) {
     Set<String> groups = new HashSet<>(requestedGroups);
     var groupsAdded = new Object(){ boolean value; };
     do {
@@ -51,17 +119,88 @@ public class Dataloader {
     } while (groupsAdded.value);
 
     log.info("Loading data for groups {} -> {}", requestedGroups, groups);
+    List<DataloaderSource> selected = new ArrayList<>();
     config.getSources().forEach(source -> {
       if (!Collections.disjoint(groups, source.groups())) {
-        TypedDataloader dataloader = loaders.get(source.type());
-        if (dataloader == null) {
+        if (!loaders.containsKey(source.type())) {
           throw new IllegalArgumentException("No dataloaders for '" + source.type() + "': " + source);
         }
-        log.debug("Loading {} source {} {}", source.type(), source.path(), source.groups());
-        dataloader.loadData(source.withCsvDefaults(config.getDefaults().csv()));
+        selected.add(source);
       } else {
         log.debug("Skipping {} source {} {}", source.type(), source.path(), source.groups());
       }
     });
+    return selected;
+  }
+
+  /**
+   * Loads a single source. A source is never loaded by more than one thread at a time, so concurrent
+   * loads of overlapping groups wait for each other (after which the checksums will usually match).
+   */
+  private void loadSource(DataloaderSource source, DataloaderProgress progress) {
+    Lock lock = sourceLocks.computeIfAbsent(stepName(source), key -> new ReentrantLock());
+    lock.lock();
+    try {
+      progress.start();
+      log.debug("Loading {} source {} {}", source.type(), source.path(), source.groups());
+      loaders.get(source.type()).loadData(source.withCsvDefaults(config.getDefaults().csv()), progress);
+      progress.complete();
+    } catch (RuntimeException e) {
+      progress.fail(e);
+      throw e;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  static String stepName(DataloaderSource source) {
+    return source.type() + ":" + source.path();
+  }
+
+  /**
+   * A source with dependsOn depends on all other sources that belong to one of the groups in its dependsOn. A source
+   * without dependsOn depends on the sources before it in the configuration, so configurations relying on the order
+   * of the sources keep it, except for the sources that (directly or indirectly) depend on it through their dependsOn.
+   * An empty dependsOn ({@code dependsOn: []}) declares that the source does not depend on any other source.
+   */
+  static Map<DataloaderSource, List<DataloaderSource>> dependencies(List<DataloaderSource> sources) {
+    Map<DataloaderSource, List<DataloaderSource>> dependencies = new IdentityHashMap<>();
+    for (DataloaderSource source : sources) {
+      if (source.dependsOn() != null) {
+        dependencies.put(source, sources.stream()
+          .filter(other -> other != source && !Collections.disjoint(source.dependsOn(), other.groups()))
+          .toList());
+      }
+    }
+    for (int i = 0; i < sources.size(); i++) {
+      DataloaderSource source = sources.get(i);
+      if (source.dependsOn() == null) {
+        List<DataloaderSource> earlier = new ArrayList<>(i);
+        for (DataloaderSource other : sources.subList(0, i)) {
+          // Depending on a source that depends on this one would be a cycle
+          if (!dependsOn(other, source, dependencies)) {
+            earlier.add(other);
+          }
+        }
+        dependencies.put(source, earlier);
+      }
+    }
+    return dependencies;
+  }
+
+  private static boolean dependsOn(DataloaderSource source, DataloaderSource target,
+                                   Map<DataloaderSource, List<DataloaderSource>> dependencies) {
+    Set<DataloaderSource> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<DataloaderSource> pending = new ArrayDeque<>(List.of(source));
+    while (!pending.isEmpty()) {
+      DataloaderSource current = pending.pop();
+      if (current == target) {
+        return true;
+      }
+      if (visited.add(current)) {
+        pending.addAll(dependencies.getOrDefault(current, List.of()));
+      }
+    }
+    return false;
   }
 }
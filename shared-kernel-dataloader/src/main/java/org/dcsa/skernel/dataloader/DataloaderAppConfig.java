@@ -10,5 +10,29 @@ import java.util.Set;
 @Configuration
 @ConfigurationProperties(prefix = "dcsa.dataloader")
 public class DataloaderAppConfig {
+  /**
+   * Groups loaded on startup before the application reports that it is ready.
+   */
   private Set<String> autoload;
+
+  /**
+   * Groups loaded on startup in the background after the application is ready.
+   */
+  private Set<String> backgroundAutoload;
+
+  /**
+   * Maximum number of sources loaded concurrently (sources are loaded in order of their dependsOn).
+   */
+  private int maxParallelism = 1;
+
+  /**
+   * Maximum number of tables loaded concurrently within a single csv source.
+   */
+  private int maxTableParallelism = 1;
+
+  /**
+   * Rows written per second, used to estimate the database time of a dry run without rollback if the csvloader
+   * history has no recorded loads to project it from.
+   */
+  private double dryRunRowsPerSecond = 10000;
 }
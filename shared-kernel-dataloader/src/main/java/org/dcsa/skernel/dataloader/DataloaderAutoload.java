@@ -0,0 +1,159 @@
+package org.dcsa.skernel.dataloader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dcsa.skernel.dataloader.DataloaderProgress.Status;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the autoload groups when the application starts.
+ *
+ * <p>The "critical" groups ("autoload") are loaded on the {@link ApplicationReadyEvent}, which Spring Boot publishes
+ * before the application reports that it is ready to accept traffic, so the application is only ready once they are
+ * loaded. The "background" groups ("backgroundAutoload") are loaded afterwards on a single low priority thread while
+ * the application serves requests.</p>
+ *
+ * <p>The status and timing of each group is available from {@link #report()} (see {@link DataloaderHealthIndicator})
+ * and the time it took to load each group is published as the timer "dataloader.autoload" (see
+ * {@link DataloaderMetrics}).</p>
+ */
+@Slf4j
+@Component
+public class DataloaderAutoload implements DisposableBean {
+  public enum Phase { CRITICAL, BACKGROUND }
+
+  /**
+   * The status of an autoload group. A group is loaded when all its sources (including the sources of the groups
+   * it depends on) have been loaded.
+   *
+   * @param elapsedMillis time from the first of its sources starting to load until the last one finished
+   */
+  public record GroupReport(
+    String group,
+    Phase phase,
+    Status status,
+    long elapsedMillis,
+    List<String> sources
+  ) {}
+
+  private record Group(String name, Phase phase, DataloaderProgress progress, List<String> sources) {
+    GroupReport report() {
+      List<DataloaderProgress> steps = sources.stream().map(progress::step).toList();
+      Status status = groupStatus(steps.stream().map(DataloaderProgress::status).toList());
+      long start = steps.stream().filter(step -> step.status() != Status.PENDING)
+        .mapToLong(DataloaderProgress::startNanos).min().orElse(0);
+      long finish = status == Status.RUNNING ? System.nanoTime()
+        : steps.stream().mapToLong(DataloaderProgress::finishNanos).max().orElse(0);
+      long elapsedMillis = status == Status.PENDING ? 0 : TimeUnit.NANOSECONDS.toMillis(finish - start);
+      return new GroupReport(name, phase, status, elapsedMillis, sources);
+    }
+  }
+
+  private final Dataloader dataloader;
+  private final DataloaderAppConfig appConfig;
+  private final DataloaderMetrics metrics;
+  private final List<Group> groups = new CopyOnWriteArrayList<>();
+  private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "dataloader-background");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  public DataloaderAutoload(Dataloader dataloader, DataloaderAppConfig appConfig, DataloaderMetrics metrics) {
+    this.dataloader = dataloader;
+    this.appConfig = appConfig;
+    this.metrics = metrics;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void autoload() {
+    DataloaderProgress critical = new DataloaderProgress("autoload");
+    DataloaderProgress background = new DataloaderProgress("backgroundAutoload");
+    Set<String> criticalGroups = appConfig.getAutoload() != null ? appConfig.getAutoload() : Set.of();
+    Set<String> backgroundGroups = appConfig.getBackgroundAutoload() != null ? appConfig.getBackgroundAutoload() : Set.of();
+    register(Phase.CRITICAL, criticalGroups, critical);
+    register(Phase.BACKGROUND, backgroundGroups, background);
+
+    try {
+      dataloader.loadData(criticalGroups, critical);
+    } finally {
+      publishTimings(Phase.CRITICAL);
+    }
+    log.info("Autoload complete");
+
+    if (!backgroundGroups.isEmpty()) {
+      backgroundExecutor.execute(() -> {
+        try {
+          dataloader.loadData(backgroundGroups, background, 1);
+          log.info("Background autoload complete");
+        } catch (RuntimeException e) {
+          log.error("Background autoload of {} failed", backgroundGroups, e);
+        } finally {
+          publishTimings(Phase.BACKGROUND);
+        }
+      });
+    }
+  }
+
+  /**
+   * The status of the autoload groups (empty until autoload starts).
+   */
+  public List<GroupReport> report() {
+    return groups.stream().map(Group::report).toList();
+  }
+
+  @Override
+  public void destroy() {
+    backgroundExecutor.shutdownNow();
+  }
+
+  private void register(Phase phase, Collection<String> groupNames, DataloaderProgress progress) {
+    List<Group> phaseGroups = new ArrayList<>();
+    for (String group : groupNames) {
+      List<String> sources = dataloader.resolveSources(Set.of(group)).stream().map(Dataloader::stepName).toList();
+      // Created up front so the group is reported as pending until its sources start loading
+      sources.forEach(progress::step);
+      phaseGroups.add(new Group(group, phase, progress, sources));
+    }
+    groups.addAll(phaseGroups);
+  }
+
+  private void publishTimings(Phase phase) {
+    groups.stream()
+      .filter(group -> group.phase() == phase)
+      .map(Group::report)
+      .filter(report -> report.status() != Status.PENDING)
+      .forEach(report -> metrics.autoload(report.group(), phase.name().toLowerCase(Locale.ROOT),
+        report.status().name().toLowerCase(Locale.ROOT), report.elapsedMillis()));
+  }
+
+  /**
+   * A group has failed if one of its sources failed and is loaded when all its sources have been loaded (or
+   * skipped).
+   */
+  static Status groupStatus(List<Status> sourceStatuses) {
+    if (sourceStatuses.contains(Status.FAILED)) {
+      return Status.FAILED;
+    }
+    if (sourceStatuses.stream().allMatch(status -> status == Status.COMPLETED || status == Status.SKIPPED)) {
+      return Status.COMPLETED;
+    }
+    if (sourceStatuses.stream().allMatch(status -> status == Status.PENDING)) {
+      return Status.PENDING;
+    }
+    return Status.RUNNING;
+  }
+}
@@ -2,22 +2,65 @@ package org.dcsa.skernel.dataloader;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class DataloaderController {
   private final Dataloader dataloader;
+  private final DataloaderJobs jobs;
+  private final DataloaderAppConfig appConfig;
 
-  @ResponseStatus(HttpStatus.OK)
+  /**
+   * Loads the groups. With async=true the load runs in the background and the job is returned with
+   * status 202, otherwise the request completes once the data has been loaded.
+   */
   @PostMapping("${dcsa.dataloader.endpoint}/{groups}")
-  public void loadReferenceData(@PathVariable("groups") String groups) {
-    dataloader.loadData(Arrays.stream(groups.split(",")).collect(Collectors.toSet()));
+  public ResponseEntity<DataloaderJob.Report> loadReferenceData(
+    @PathVariable("groups") String groups,
+    @RequestParam(value = "async", defaultValue = "false") boolean async
+  ) {
+    var requestedGroups = Arrays.stream(groups.split(",")).collect(Collectors.toSet());
+    if (async) {
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobs.submit(requestedGroups).report());
+    }
+    dataloader.loadData(requestedGroups);
+    return ResponseEntity.ok().build();
+  }
+
+  /**
+   * Parses and validates the groups without loading anything. With rollback=true the rows are also written
+   * inside a transaction that is rolled back.
+   */
+  @PostMapping("${dcsa.dataloader.endpoint}/{groups}/dry-run")
+  public DataloaderDryRun.Report dryRun(
+    @PathVariable("groups") String groups,
+    @RequestParam(value = "rollback", defaultValue = "false") boolean rollback,
+    @RequestParam(value = "maxErrors", defaultValue = "" + DataloaderDryRun.DEFAULT_MAX_ERRORS) int maxErrors
+  ) {
+    var requestedGroups = Arrays.stream(groups.split(",")).collect(Collectors.toSet());
+    return dataloader.dryRun(requestedGroups, new DataloaderDryRun(maxErrors, rollback, appConfig.getDryRunRowsPerSecond()));
+  }
+
+  @GetMapping("${dcsa.dataloader.endpoint}/jobs")
+  public List<DataloaderJob.Report> getJobs() {
+    return jobs.findAll().stream().map(DataloaderJob::report).toList();
+  }
+
+  @GetMapping("${dcsa.dataloader.endpoint}/jobs/{id}")
+  public DataloaderJob.Report getJob(@PathVariable("id") String id) {
+    return jobs.find(id)
+      .map(DataloaderJob::report)
+      .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No dataloader job with id " + id));
   }
 }
@@ -0,0 +1,189 @@
+package org.dcsa.skernel.dataloader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the results of a dry run, where the sources are parsed and validated without loading anything.
+ *
+ * <p>With "rollback" the rows are also written to the database inside a transaction that is rolled back, which
+ * detects constraint violations and measures the actual database time. Otherwise the database time is projected
+ * from the number of rows using the rate of the earlier loads of the table (or of the database) as recorded in their
+ * history, and only if there is no such history using "rowsPerSecond".</p>
+ */
+public class DataloaderDryRun {
+  public static final int DEFAULT_MAX_ERRORS = 10;
+
+  /**
+   * How the database time was determined: MEASURED with rollback, HISTORY from the rate of earlier loads and
+   * ESTIMATE from the configured rate, as there was no history.
+   */
+  public enum Projection { MEASURED, HISTORY, ESTIMATE }
+
+  /**
+   * The result for a single file.
+   *
+   * @param dbMillis time spent writing to the database (only with rollback)
+   * @param projectedDbMillis the database time measured with rollback, otherwise projected from the rows
+   * @param projection how projectedDbMillis was determined
+   * @param errors the first "maxErrors" errors
+   */
+  public record FileReport(
+    String source,
+    String table,
+    String file,
+    long rows,
+    long bytes,
+    long parseMillis,
+    Long dbMillis,
+    long projectedDbMillis,
+    Projection projection,
+    int errorCount,
+    List<String> errors
+  ) {}
+
+  /**
+   * The totals of all files.
+   *
+   * @param projection the least accurate projection of the files
+   */
+  public record Report(
+    boolean rollback,
+    long rows,
+    long bytes,
+    long parseMillis,
+    long projectedDbMillis,
+    Projection projection,
+    int errorCount,
+    List<FileReport> files,
+    List<String> notes
+  ) {}
+
+  private final int maxErrors;
+  private final boolean rollback;
+  private final double rowsPerSecond;
+  private final List<FileResult> files = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> notes = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * @param rowsPerSecond the rate the database time is projected with if there is no history
+   */
+  public DataloaderDryRun(int maxErrors, boolean rollback, double rowsPerSecond) {
+    this.maxErrors = maxErrors;
+    this.rollback = rollback;
+    this.rowsPerSecond = rowsPerSecond;
+  }
+
+  public boolean rollback() {
+    return rollback;
+  }
+
+  /**
+   * Starts collecting the results for a file. The result must only be updated by a single thread.
+   */
+  public FileResult file(String source, String table, String file) {
+    FileResult result = new FileResult(source, table, file);
+    files.add(result);
+    return result;
+  }
+
+  /**
+   * Adds a note about a source that has nothing to validate at the row level (e.g. pending migrations).
+   */
+  public void note(String note) {
+    notes.add(note);
+  }
+
+  public Report report() {
+    List<FileReport> fileReports;
+    synchronized (files) {
+      fileReports = files.stream().map(FileResult::report).toList();
+    }
+    return new Report(
+      rollback,
+      fileReports.stream().mapToLong(FileReport::rows).sum(),
+      fileReports.stream().mapToLong(FileReport::bytes).sum(),
+      fileReports.stream().mapToLong(FileReport::parseMillis).sum(),
+      fileReports.stream().mapToLong(FileReport::projectedDbMillis).sum(),
+      fileReports.stream().map(FileReport::projection).max(Comparator.naturalOrder())
+        .orElse(rollback ? Projection.MEASURED : Projection.ESTIMATE),
+      fileReports.stream().mapToInt(FileReport::errorCount).sum(),
+      fileReports,
+      List.copyOf(notes)
+    );
+  }
+
+  public class FileResult {
+    private final String source;
+    private final String table;
+    private final String file;
+    private final List<String> errors = new ArrayList<>();
+    private long rows;
+    private long bytes;
+    private long parseNanos;
+    private long dbNanos;
+    private int errorCount;
+    private Double historyRowsPerSecond;
+
+    private FileResult(String source, String table, String file) {
+      this.source = source;
+      this.table = table;
+      this.file = file;
+    }
+
+    public void addRow() {
+      rows++;
+    }
+
+    public void setBytes(long bytes) {
+      this.bytes = bytes;
+    }
+
+    public void addParseNanos(long nanos) {
+      parseNanos += nanos;
+    }
+
+    public void addDbNanos(long nanos) {
+      dbNanos += nanos;
+    }
+
+    public long dbNanos() {
+      return dbNanos;
+    }
+
+    public void error(String message) {
+      if (errors.size() < maxErrors) {
+        errors.add(message);
+      }
+      errorCount++;
+    }
+
+    /**
+     * Sets the rate of the earlier loads of the table, which the database time is projected with.
+     */
+    public void setHistoryRowsPerSecond(double historyRowsPerSecond) {
+      this.historyRowsPerSecond = historyRowsPerSecond;
+    }
+
+    private FileReport report() {
+      Projection projection;
+      long projectedDbMillis;
+      if (rollback) {
+        projection = Projection.MEASURED;
+        projectedDbMillis = TimeUnit.NANOSECONDS.toMillis(dbNanos);
+      } else if (historyRowsPerSecond != null && historyRowsPerSecond > 0) {
+        projection = Projection.HISTORY;
+        projectedDbMillis = Math.round(rows * 1000 / historyRowsPerSecond);
+      } else {
+        projection = Projection.ESTIMATE;
+        projectedDbMillis = rowsPerSecond > 0 ? Math.round(rows * 1000 / rowsPerSecond) : 0;
+      }
+      return new FileReport(source, table, file, rows, bytes, TimeUnit.NANOSECONDS.toMillis(parseNanos),
+        rollback ? TimeUnit.NANOSECONDS.toMillis(dbNanos) : null, projectedDbMillis, projection, errorCount,
+        List.copyOf(errors));
+    }
+  }
+}
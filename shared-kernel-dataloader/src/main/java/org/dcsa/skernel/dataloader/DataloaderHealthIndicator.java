@@ -0,0 +1,52 @@
+package org.dcsa.skernel.dataloader;
+
+import lombok.RequiredArgsConstructor;
+import org.dcsa.skernel.dataloader.DataloaderProgress.Status;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reports the status of the autoload groups as the "dataloader" health indicator (only if Spring Boot Actuator is
+ * on the classpath).
+ *
+ * <p>The status is OUT_OF_SERVICE while critical groups are being loaded, DOWN if a critical group failed to load and
+ * UP otherwise. Background groups that are still loading or failed to load are listed as pending or failed but do not
+ * affect the status, so they do not take down the aggregate health (or readiness).</p>
+ */
+@Component("dataloader")
+@ConditionalOnClass(name = "org.springframework.boot.actuate.health.HealthIndicator")
+@RequiredArgsConstructor
+public class DataloaderHealthIndicator implements HealthIndicator {
+  private final DataloaderAutoload autoload;
+
+  @Override
+  public Health health() {
+    return health(autoload.report());
+  }
+
+  static Health health(List<DataloaderAutoload.GroupReport> groups) {
+    List<String> pending = groups.stream()
+      .filter(group -> group.status() == Status.PENDING || group.status() == Status.RUNNING)
+      .map(DataloaderAutoload.GroupReport::group)
+      .toList();
+    List<String> failed = groups.stream()
+      .filter(group -> group.status() == Status.FAILED)
+      .map(DataloaderAutoload.GroupReport::group)
+      .toList();
+    boolean criticalFailed = groups.stream()
+      .anyMatch(group -> group.phase() == DataloaderAutoload.Phase.CRITICAL && group.status() == Status.FAILED);
+    boolean criticalPending = groups.stream()
+      .anyMatch(group -> group.phase() == DataloaderAutoload.Phase.CRITICAL && pending.contains(group.group()));
+
+    Health.Builder builder = criticalFailed ? Health.down() : criticalPending ? Health.outOfService() : Health.up();
+    return builder
+      .withDetail("pending", pending)
+      .withDetail("failed", failed)
+      .withDetail("groups", groups)
+      .build();
+  }
+}
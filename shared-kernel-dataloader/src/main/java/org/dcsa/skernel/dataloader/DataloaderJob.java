@@ -0,0 +1,60 @@
+package org.dcsa.skernel.dataloader;
+
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.dcsa.skernel.dataloader.DataloaderProgress.Status;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A load of one or more groups running in the background.
+ */
+public class DataloaderJob {
+  public record Report(
+    String id,
+    Set<String> groups,
+    OffsetDateTime created,
+    DataloaderProgress.Report progress
+  ) {}
+
+  private final String id = UUID.randomUUID().toString();
+  private final OffsetDateTime created = OffsetDateTime.now();
+  private final Set<String> groups;
+  private final List<DataloaderSource> sources;
+  private final DataloaderProgress progress = new DataloaderProgress("job");
+
+  DataloaderJob(Set<String> groups, List<DataloaderSource> sources) {
+    this.groups = groups;
+    this.sources = sources;
+  }
+
+  public String id() {
+    return id;
+  }
+
+  public boolean isActive() {
+    Status status = progress.status();
+    return status == Status.PENDING || status == Status.RUNNING;
+  }
+
+  /**
+   * Whether this job loads (at least) all of the given sources.
+   */
+  boolean covers(List<DataloaderSource> otherSources) {
+    return otherSources.stream().allMatch(source -> sources.stream().anyMatch(s -> s == source));
+  }
+
+  Set<String> groups() {
+    return groups;
+  }
+
+  DataloaderProgress progress() {
+    return progress;
+  }
+
+  public Report report() {
+    return new Report(id, groups, created, progress.report());
+  }
+}
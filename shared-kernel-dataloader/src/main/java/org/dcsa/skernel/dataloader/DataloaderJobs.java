@@ -0,0 +1,90 @@
+package org.dcsa.skernel.dataloader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs loads in the background, one job at a time.
+ *
+ * <p>A request for groups whose sources are all loaded by a job that is already queued or running returns that
+ * job instead of creating a new one. Sources are furthermore never loaded concurrently (see
+ * {@link Dataloader}), so overlapping jobs and synchronous loads do not load the same tables twice at once.</p>
+ */
+@Slf4j
+@Component
+public class DataloaderJobs implements DisposableBean {
+  private static final int MAX_FINISHED_JOBS = 100;
+
+  private final Dataloader dataloader;
+  private final Map<String, DataloaderJob> jobs = new LinkedHashMap<>();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "dataloader-job");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public DataloaderJobs(Dataloader dataloader) {
+    this.dataloader = dataloader;
+  }
+
+  /**
+   * Submits a job loading the given groups or returns an active job that already covers them.
+   */
+  public synchronized DataloaderJob submit(Set<String> requestedGroups) {
+    List<DataloaderSource> sources = dataloader.resolveSources(requestedGroups);
+    Optional<DataloaderJob> activeJob = jobs.values().stream()
+      .filter(job -> !sources.isEmpty() && job.isActive() && job.covers(sources))
+      .findFirst();
+    if (activeJob.isPresent()) {
+      log.info("Groups {} are already being loaded by job {}", requestedGroups, activeJob.get().id());
+      return activeJob.get();
+    }
+
+    DataloaderJob job = new DataloaderJob(requestedGroups, sources);
+    jobs.put(job.id(), job);
+    removeFinishedJobs();
+    executor.execute(() -> {
+      try {
+        dataloader.loadData(job.groups(), job.progress());
+      } catch (RuntimeException e) {
+        log.error("Dataloader job {} failed", job.id(), e);
+      }
+    });
+    log.info("Submitted dataloader job {} for groups {}", job.id(), requestedGroups);
+    return job;
+  }
+
+  public synchronized Optional<DataloaderJob> find(String id) {
+    return Optional.ofNullable(jobs.get(id));
+  }
+
+  public synchronized List<DataloaderJob> findAll() {
+    return List.copyOf(jobs.values());
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private void removeFinishedJobs() {
+    long finished = jobs.values().stream().filter(job -> !job.isActive()).count();
+    var iterator = jobs.values().iterator();
+    while (finished > MAX_FINISHED_JOBS && iterator.hasNext()) {
+      if (!iterator.next().isActive()) {
+        iterator.remove();
+        finished--;
+      }
+    }
+  }
+}
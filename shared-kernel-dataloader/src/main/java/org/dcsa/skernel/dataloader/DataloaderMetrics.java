@@ -0,0 +1,160 @@
+package org.dcsa.skernel.dataloader;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Micrometer meters of the dataloader.
+ *
+ * <p>Meters are registered with the application's {@link MeterRegistry} if there is one, and otherwise with the
+ * global registry (which discards them unless a registry has been added to it). Csv meters are tagged with the
+ * source path and table and, where it applies, the strategy used to write the rows ("copy", "insert", "upsert",
+ * "staging" or "incremental").</p>
+ */
+@Component
+public class DataloaderMetrics {
+  private final MeterRegistry registry;
+
+  public DataloaderMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+    this.registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+  }
+
+  /**
+   * Records a csv file that was fetched and hashed (files known to be unchanged are not fetched).
+   *
+   * @param checksumNanos time spent reading the file to compute its checksum (for remote files this includes
+   *                      the transfer)
+   */
+  public void csvFetched(String source, String table, long bytes, long checksumNanos) {
+    DistributionSummary.builder("dataloader.csv.fetched")
+      .description("Bytes of csv files fetched")
+      .baseUnit("bytes")
+      .tag("source", source)
+      .tag("table", table)
+      .register(registry)
+      .record(bytes);
+    Timer.builder("dataloader.csv.checksum")
+      .description("Time to fetch and checksum a csv file")
+      .tag("source", source)
+      .tag("table", table)
+      .register(registry)
+      .record(checksumNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a table that was not loaded as its file is unchanged ("unchanged") or has the same checksum as when
+   * it was last loaded ("checksum").
+   */
+  public void csvTableSkipped(String source, String table, String reason) {
+    Counter.builder("dataloader.csv.tables.skipped")
+      .description("Tables not loaded because their file is unchanged")
+      .tag("source", source)
+      .tag("table", table)
+      .tag("reason", reason)
+      .register(registry)
+      .increment();
+  }
+
+  /**
+   * Records the load of a table.
+   *
+   * @param parseNanos time spent parsing and converting the rows (excluding the writes)
+   * @param transactionNanos time of the transaction writing the rows (which includes parsing, as the rows are
+   *                         streamed from the file into the database)
+   * @param rows the rows read from the file
+   * @param written the rows written to the table (for incremental loads only the rows that were added, changed or
+   *                deleted)
+   */
+  public void csvTableLoaded(String source, String table, String strategy, long parseNanos, long transactionNanos,
+                             long rows, long written) {
+    Timer.builder("dataloader.csv.parse")
+      .description("Time spent parsing csv rows")
+      .tag("source", source)
+      .tag("table", table)
+      .tag("strategy", strategy)
+      .register(registry)
+      .record(parseNanos, TimeUnit.NANOSECONDS);
+    Timer.builder("dataloader.csv.transaction")
+      .description("Time of the transaction loading a table")
+      .tag("source", source)
+      .tag("table", table)
+      .tag("strategy", strategy)
+      .register(registry)
+      .record(transactionNanos, TimeUnit.NANOSECONDS);
+    boolean inserted = "copy".equals(strategy) || "insert".equals(strategy);
+    csvRows(source, table, strategy, inserted ? "inserted" : "upserted", written);
+    csvRows(source, table, strategy, "skipped", Math.max(0, rows - written));
+  }
+
+  /**
+   * The sizes of the JDBC batches sent when loading a table.
+   */
+  public DistributionSummary csvBatchSize(String source, String table, String strategy) {
+    return DistributionSummary.builder("dataloader.csv.batch.size")
+      .description("Rows per JDBC batch")
+      .baseUnit("rows")
+      .tag("source", source)
+      .tag("table", table)
+      .tag("strategy", strategy)
+      .register(registry);
+  }
+
+  /**
+   * Records reading ("read") or writing ("write") the csvloader history of a source.
+   */
+  public void csvHistory(String operation, long nanos) {
+    Timer.builder("dataloader.csv.history")
+      .description("Time to read or write the csvloader history")
+      .tag("operation", operation)
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a flyway source that was validated and (if outcome is "migrated") migrated.
+   */
+  public void flyway(String source, String outcome, long nanos, int migrations) {
+    Timer.builder("dataloader.flyway")
+      .description("Time to validate and migrate a flyway source")
+      .tag("source", source)
+      .tag("outcome", outcome)
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+    Counter.builder("dataloader.flyway.migrations")
+      .description("Migrations applied")
+      .tag("source", source)
+      .register(registry)
+      .increment(migrations);
+  }
+
+  /**
+   * Records the time it took to load an autoload group.
+   */
+  public void autoload(String group, String phase, String status, long millis) {
+    Timer.builder("dataloader.autoload")
+      .description("Time to load an autoload group")
+      .tag("group", group)
+      .tag("phase", phase)
+      .tag("status", status)
+      .register(registry)
+      .record(millis, TimeUnit.MILLISECONDS);
+  }
+
+  private void csvRows(String source, String table, String strategy, String outcome, long count) {
+    Counter.builder("dataloader.csv.rows")
+      .description("Rows loaded from csv files")
+      .tag("source", source)
+      .tag("table", table)
+      .tag("strategy", strategy)
+      .tag("outcome", outcome)
+      .register(registry)
+      .increment(count);
+  }
+}
@@ -0,0 +1,107 @@
+package org.dcsa.skernel.dataloader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of a step in loading data (a job, a source or a table). Steps form a tree, so a job has a step
+ * per source and a source has a step per table.
+ *
+ * <p>Dataloaders report rows processed while loading so progress can be observed by other threads.</p>
+ */
+public class DataloaderProgress {
+  public enum Status { PENDING, RUNNING, COMPLETED, SKIPPED, FAILED }
+
+  public record Report(
+    String name,
+    Status status,
+    long rows,
+    long elapsedMillis,
+    long rowsPerSecond,
+    String error,
+    List<Report> steps
+  ) {}
+
+  private final String name;
+  private final Map<String, DataloaderProgress> steps = Collections.synchronizedMap(new LinkedHashMap<>());
+  private final LongAdder rows = new LongAdder();
+  private volatile Status status = Status.PENDING;
+  private volatile long startNanos;
+  private volatile long finishNanos;
+  private volatile String error;
+
+  public DataloaderProgress(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the sub step with the given name (creating it if necessary).
+   */
+  public DataloaderProgress step(String name) {
+    return steps.computeIfAbsent(name, DataloaderProgress::new);
+  }
+
+  public void start() {
+    startNanos = System.nanoTime();
+    status = Status.RUNNING;
+  }
+
+  public void complete() {
+    finish(Status.COMPLETED);
+  }
+
+  public void skip() {
+    finish(Status.SKIPPED);
+  }
+
+  public void fail(Throwable cause) {
+    error = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    finish(Status.FAILED);
+  }
+
+  public void addRows(long count) {
+    rows.add(count);
+  }
+
+  public Status status() {
+    return status;
+  }
+
+  long startNanos() {
+    return startNanos;
+  }
+
+  long finishNanos() {
+    return finishNanos;
+  }
+
+  public Report report() {
+    List<Report> stepReports;
+    synchronized (steps) {
+      stepReports = new ArrayList<>(steps.size());
+      steps.values().forEach(step -> stepReports.add(step.report()));
+    }
+    long totalRows = rows.sum() + stepReports.stream().mapToLong(Report::rows).sum();
+    long elapsedNanos = switch (status) {
+      case PENDING -> 0;
+      case RUNNING -> System.nanoTime() - startNanos;
+      default -> finishNanos - startNanos;
+    };
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    long rowsPerSecond = elapsedNanos > 0 ? totalRows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    return new Report(name, status, totalRows, elapsedMillis, rowsPerSecond, error, stepReports);
+  }
+
+  private void finish(Status finalStatus) {
+    if (status == Status.PENDING) {
+      startNanos = System.nanoTime();
+    }
+    finishNanos = System.nanoTime();
+    status = finalStatus;
+  }
+}
@@ -0,0 +1,165 @@
+package org.dcsa.skernel.dataloader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a set of dependent tasks (a DAG) with a bounded number of tasks running concurrently.
+ *
+ * <p>Tasks are started in the order they are given as soon as all their dependencies have completed. With a
+ * parallelism of 1 all tasks are run on the calling thread in dependency order (and otherwise in the given
+ * order). If a task fails no further tasks are started and the first failure is rethrown once the running
+ * tasks have completed.</p>
+ */
+@Slf4j
+@Component
+public class DataloaderScheduler implements DisposableBean {
+  private final AtomicInteger threadCount = new AtomicInteger();
+  private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "dataloader-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Runs the action for all nodes.
+   *
+   * @param nodes the nodes to run, in preferred order
+   * @param dependencies the nodes a node depends on (nodes that are not in "nodes" are ignored)
+   * @param action the action to perform for each node
+   * @param maxParallelism the maximum number of actions running concurrently
+   */
+  public <T> void run(List<T> nodes, Function<T, Collection<T>> dependencies, Consumer<T> action, int maxParallelism) {
+    Graph graph = new Graph(nodes, dependencies);
+    if (maxParallelism <= 1 || nodes.size() <= 1) {
+      graph.topologicalOrder().forEach(index -> action.accept(nodes.get(index)));
+      return;
+    }
+
+    CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+    PriorityQueue<Integer> ready = graph.roots();
+    int[] remaining = graph.dependencyCounts();
+    int running = 0;
+    RuntimeException failure = null;
+    while (running > 0 || (failure == null && !ready.isEmpty())) {
+      while (failure == null && running < maxParallelism && !ready.isEmpty()) {
+        int index = ready.poll();
+        T node = nodes.get(index);
+        completionService.submit(() -> action.accept(node), index);
+        running++;
+      }
+      try {
+        int completed = completionService.take().get();
+        for (int dependent : graph.dependents(completed)) {
+          if (--remaining[dependent] == 0) {
+            ready.add(dependent);
+          }
+        }
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof RuntimeException runtimeException
+            ? runtimeException
+            : new DataloaderException("Loading data failed", e);
+        } else {
+          log.debug("Additional failure while loading data", e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DataloaderException("Interrupted while loading data", e);
+      } finally {
+        running--;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Index based representation of the dependencies between the nodes.
+   */
+  private static class Graph {
+    private final List<List<Integer>> dependents;
+    private final int[] dependencyCounts;
+
+    <T> Graph(List<T> nodes, Function<T, Collection<T>> dependencies) {
+      Map<T, Integer> indexes = new IdentityHashMap<>();
+      for (int i = 0; i < nodes.size(); i++) {
+        indexes.put(nodes.get(i), i);
+      }
+      dependents = new ArrayList<>(nodes.size());
+      dependencyCounts = new int[nodes.size()];
+      nodes.forEach(node -> dependents.add(new ArrayList<>()));
+      for (int i = 0; i < nodes.size(); i++) {
+        Collection<T> nodeDependencies = dependencies.apply(nodes.get(i));
+        if (nodeDependencies != null) {
+          for (T dependency : nodeDependencies) {
+            Integer dependencyIndex = indexes.get(dependency);
+            if (dependencyIndex != null && dependencyIndex != i) {
+              dependents.get(dependencyIndex).add(i);
+              dependencyCounts[i]++;
+            }
+          }
+        }
+      }
+      if (topologicalOrder().size() != nodes.size()) {
+        throw new DataloaderException("Cyclic dependencies between " + nodes);
+      }
+    }
+
+    List<Integer> dependents(int index) {
+      return dependents.get(index);
+    }
+
+    int[] dependencyCounts() {
+      return dependencyCounts.clone();
+    }
+
+    PriorityQueue<Integer> roots() {
+      PriorityQueue<Integer> roots = new PriorityQueue<>();
+      for (int i = 0; i < dependencyCounts.length; i++) {
+        if (dependencyCounts[i] == 0) {
+          roots.add(i);
+        }
+      }
+      return roots;
+    }
+
+    List<Integer> topologicalOrder() {
+      List<Integer> order = new ArrayList<>(dependencyCounts.length);
+      PriorityQueue<Integer> ready = roots();
+      int[] remaining = dependencyCounts();
+      while (!ready.isEmpty()) {
+        int index = ready.poll();
+        order.add(index);
+        for (int dependent : dependents.get(index)) {
+          if (--remaining[dependent] == 0) {
+            ready.add(dependent);
+          }
+        }
+      }
+      return order;
+    }
+  }
+}
@@ -4,4 +4,20 @@ import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
 
 public interface TypedDataloader {
   public void loadData(DataloaderSource source);
+
+  /**
+   * Loads data from the source reporting progress to the given progress step. Dataloaders that can
+   * report finer grained progress (e.g. per table) should override this.
+   */
+  public default void loadData(DataloaderSource source, DataloaderProgress progress) {
+    loadData(source);
+  }
+
+  /**
+   * Validates the source without loading anything, adding the results to the dry run. Dataloaders that can
+   * not validate their sources only add a note.
+   */
+  public default void dryRun(DataloaderSource source, DataloaderDryRun dryRun) {
+    dryRun.note(source.type() + ":" + source.path() + " - dry run not supported");
+  }
 }
@@ -0,0 +1,138 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Writes rows with insert (or upsert) statements sent in JDBC batches of "batchSize" rows.
+ *
+ * <p>The statement is a plain single-row "insert ... values (...)" (optionally with "on conflict") so the
+ * PostgreSQL driver can collapse each batch into multi-row inserts when "reWriteBatchedInserts=true" is
+ * set on the connection. The statement is prepared once per table and the values of each row are bound
+ * to it directly by the {@link CsvRowBinder}, so no per-row argument arrays are created.</p>
+ *
+ * <p>Must be used within a transaction (the statement uses the connection bound to it).</p>
+ */
+@Slf4j
+class CsvBatchInsertWriter implements CsvRowWriter {
+  private final DataSource dataSource;
+  private final CsvDataloaderEntry entry;
+  private final CsvRowBinder binder;
+  private final int batchSize;
+  private final Connection connection;
+  private final PreparedStatement statement;
+  private final DistributionSummary batchSizes;
+  private int batchCount = 0;
+  private int batchLineNo;
+  private int rows = 0;
+
+  /**
+   * @param batchSizes records the number of rows in each batch (may be null)
+   */
+  CsvBatchInsertWriter(JdbcTemplate jdbcTemplate, CsvDataloaderEntry entry, CsvRowBinder binder, String sql,
+                       DistributionSummary batchSizes) {
+    this.dataSource = jdbcTemplate.getDataSource();
+    this.batchSizes = batchSizes;
+    this.entry = entry;
+    this.binder = binder;
+    this.batchSize = Math.max(1, entry.batchSize());
+    this.connection = DataSourceUtils.getConnection(dataSource);
+    try {
+      this.statement = connection.prepareStatement(sql);
+    } catch (SQLException e) {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+      throw new CsvDataloaderException("Unable to prepare insert into " + entry.table() + " - " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void write(String[] values, int lineNo) {
+    if (batchCount == 0) {
+      batchLineNo = lineNo;
+    }
+    try {
+      binder.bind(statement, values);
+      statement.addBatch();
+    } catch (SQLException | IllegalArgumentException e) {
+      throw new CsvDataloaderException("Error in " + entry.file() + ":" + lineNo + " - " + e.getMessage(), e);
+    }
+    if (++batchCount >= batchSize) {
+      writeBatch();
+    }
+  }
+
+  @Override
+  public int finish() {
+    try {
+      if (batchCount > 0) {
+        writeBatch();
+      }
+      return rows;
+    } finally {
+      close();
+    }
+  }
+
+  @Override
+  public void abort() {
+    close();
+  }
+
+  private void writeBatch() {
+    try {
+      statement.executeBatch();
+      if (batchSizes != null) {
+        batchSizes.record(batchCount);
+      }
+      rows += batchCount;
+      batchCount = 0;
+    } catch (SQLException e) {
+      int failedIndex = failedBatchIndex(e, batchCount);
+      String location = failedIndex >= 0
+        ? entry.file() + ":" + (batchLineNo + failedIndex)
+        : entry.file() + ":" + batchLineNo + "-" + (batchLineNo + batchCount - 1);
+      SQLException cause = e.getNextException() != null ? e.getNextException() : e;
+      throw new CsvDataloaderException("Error in " + location + " - " + cause.getMessage(), e);
+    }
+  }
+
+  private void close() {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      log.debug("Unable to close statement for {}: {}", entry.table(), e.getMessage());
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+  }
+
+  /**
+   * Finds the index of the row that failed in a batch using the update counts reported by the driver.
+   * Returns -1 if the driver did not report enough information to determine the row.
+   */
+  private static int failedBatchIndex(SQLException e, int batchSize) {
+    if (e instanceof BatchUpdateException batchUpdateException) {
+      int[] updateCounts = batchUpdateException.getUpdateCounts();
+      if (updateCounts == null) {
+        return -1;
+      }
+      for (int i = 0; i < updateCounts.length; i++) {
+        if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+          return i;
+        }
+      }
+      return updateCounts.length < batchSize ? updateCounts.length : -1;
+    }
+    return batchSize == 1 ? 0 : -1;
+  }
+}
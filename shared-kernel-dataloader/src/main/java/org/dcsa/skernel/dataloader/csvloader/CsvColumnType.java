@@ -0,0 +1,266 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+
+/**
+ * Type of a column in a csv file (the "type" in "name:type" in the columns of csvloader.yml). Converts the
+ * values of the column and binds them to statements with a matching JDBC type.
+ *
+ * <p>Values are parsed once by the csvloader and bound with their native JDBC type, so the database does not
+ * have to cast them from text. Additional types can be registered with {@link CsvColumnTypes}.</p>
+ */
+public interface CsvColumnType {
+  /**
+   * The {@link Types} of the column.
+   */
+  int sqlType();
+
+  /**
+   * Converts a (non-null) csv value.
+   */
+  Object parse(String value);
+
+  /**
+   * Binds a (non-null) csv value to the statement, by default the parsed value is bound with setObject.
+   */
+  default void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+    statement.setObject(parameterIndex, parse(value), sqlType());
+  }
+
+  default void bindNull(PreparedStatement statement, int parameterIndex) throws SQLException {
+    statement.setNull(parameterIndex, sqlType());
+  }
+
+  /**
+   * The canonical text form of a (non-null) csv value, used where values are written as text (e.g. by COPY).
+   */
+  default String format(String value) {
+    return String.valueOf(parse(value));
+  }
+
+  enum Standard implements CsvColumnType {
+    STRING(Types.VARCHAR) {
+      @Override
+      public Object parse(String value) {
+        return value;
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setString(parameterIndex, value);
+      }
+
+      @Override
+      public void bindNull(PreparedStatement statement, int parameterIndex) throws SQLException {
+        // Untyped columns are also used for e.g. dates, so let the database decide the type of null
+        statement.setNull(parameterIndex, Types.NULL);
+      }
+
+      @Override
+      public String format(String value) {
+        return value;
+      }
+    },
+    /**
+     * Fixed length character strings (bpchar / char(n)), bound as is.
+     */
+    BPCHAR(Types.CHAR) {
+      @Override
+      public Object parse(String value) {
+        return value;
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setString(parameterIndex, value);
+      }
+
+      @Override
+      public String format(String value) {
+        return value;
+      }
+    },
+    INT(Types.INTEGER) {
+      @Override
+      public Object parse(String value) {
+        return Integer.parseInt(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setInt(parameterIndex, Integer.parseInt(value));
+      }
+    },
+    LONG(Types.BIGINT) {
+      @Override
+      public Object parse(String value) {
+        return Long.parseLong(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setLong(parameterIndex, Long.parseLong(value));
+      }
+    },
+    BOOLEAN(Types.BOOLEAN) {
+      @Override
+      public Object parse(String value) {
+        return Boolean.parseBoolean(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setBoolean(parameterIndex, Boolean.parseBoolean(value));
+      }
+    },
+    FLOAT(Types.REAL) {
+      @Override
+      public Object parse(String value) {
+        return Float.parseFloat(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setFloat(parameterIndex, Float.parseFloat(value));
+      }
+    },
+    DOUBLE(Types.DOUBLE) {
+      @Override
+      public Object parse(String value) {
+        return Double.parseDouble(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setDouble(parameterIndex, Double.parseDouble(value));
+      }
+    },
+    NUMERIC(Types.NUMERIC) {
+      @Override
+      public Object parse(String value) {
+        return new BigDecimal(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setBigDecimal(parameterIndex, new BigDecimal(value));
+      }
+
+      @Override
+      public String format(String value) {
+        return new BigDecimal(value).toPlainString();
+      }
+    },
+    UUID(Types.OTHER) {
+      @Override
+      public Object parse(String value) {
+        return java.util.UUID.fromString(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setObject(parameterIndex, java.util.UUID.fromString(value));
+      }
+    },
+    DATE(Types.DATE) {
+      @Override
+      public Object parse(String value) {
+        return LocalDate.parse(value);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setObject(parameterIndex, LocalDate.parse(value));
+      }
+    },
+    /**
+     * Timestamp without time zone, e.g. "2021-01-31T12:00:00" or "2021-01-31 12:00:00".
+     */
+    TIMESTAMP(Types.TIMESTAMP) {
+      @Override
+      public Object parse(String value) {
+        return LocalDateTime.parse(value, TIMESTAMP_FORMAT);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setObject(parameterIndex, parse(value));
+      }
+    },
+    /**
+     * Timestamp with time zone, e.g. "2021-01-31T12:00:00Z" or "2021-01-31 12:00:00+01" (as written by PostgreSQL).
+     */
+    TIMESTAMPTZ(Types.TIMESTAMP_WITH_TIMEZONE) {
+      @Override
+      public Object parse(String value) {
+        return OffsetDateTime.parse(value, TIMESTAMPTZ_FORMAT);
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setObject(parameterIndex, parse(value));
+      }
+    },
+    /**
+     * json / jsonb. The value is validated by the csvloader and sent as text with an unspecified type, so
+     * PostgreSQL converts it to the type of the column.
+     */
+    JSONB(Types.OTHER) {
+      @Override
+      public Object parse(String value) {
+        try {
+          JSON_MAPPER.readTree(value);
+        } catch (JsonProcessingException e) {
+          throw new IllegalArgumentException("Invalid json: " + e.getOriginalMessage(), e);
+        }
+        return value;
+      }
+
+      @Override
+      public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        statement.setObject(parameterIndex, parse(value), Types.OTHER);
+      }
+
+      @Override
+      public String format(String value) {
+        return (String) parse(value);
+      }
+    };
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+      .parseCaseInsensitive()
+      .append(DateTimeFormatter.ISO_LOCAL_DATE)
+      .optionalStart().appendLiteral('T').optionalEnd()
+      .optionalStart().appendLiteral(' ').optionalEnd()
+      .append(DateTimeFormatter.ISO_LOCAL_TIME)
+      .toFormatter();
+    private static final DateTimeFormatter TIMESTAMPTZ_FORMAT = new DateTimeFormatterBuilder()
+      .append(TIMESTAMP_FORMAT)
+      .parseLenient()
+      .appendOffset("+HH:MM:ss", "Z")
+      .toFormatter();
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final int sqlType;
+
+    Standard(int sqlType) {
+      this.sqlType = sqlType;
+    }
+
+    @Override
+    public int sqlType() {
+      return sqlType;
+    }
+  }
+}
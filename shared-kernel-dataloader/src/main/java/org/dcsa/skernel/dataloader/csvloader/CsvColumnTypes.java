@@ -0,0 +1,98 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the column types that can be used in the columns of csvloader.yml ("name:type").
+ *
+ * <p>Besides the built-in types any PostgreSQL enum type can be used by its name, the labels of the enum are
+ * looked up once and values are validated before they are sent to the database. Applications can register
+ * their own types by declaring a {@link Customizer} bean.</p>
+ */
+@Slf4j
+@Component
+public class CsvColumnTypes {
+  private static final String ENUM_LABELS = """
+    select e.enumlabel
+      from pg_catalog.pg_enum e
+      join pg_catalog.pg_type t on t.oid = e.enumtypid
+     where t.typname = ?
+     order by e.enumsortorder
+    """;
+
+  /**
+   * Registers additional column types, called when the registry is created.
+   */
+  @FunctionalInterface
+  public interface Customizer {
+    void customize(CsvColumnTypes columnTypes);
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<String, CsvColumnType> types = new ConcurrentHashMap<>();
+
+  public CsvColumnTypes(JdbcTemplate jdbcTemplate, ObjectProvider<Customizer> customizers) {
+    this.jdbcTemplate = jdbcTemplate;
+    register(CsvColumnType.Standard.STRING, "str", "string", "text", "varchar");
+    register(CsvColumnType.Standard.BPCHAR, "bpchar", "char");
+    register(CsvColumnType.Standard.INT, "int", "integer");
+    register(CsvColumnType.Standard.LONG, "long", "bigint");
+    register(CsvColumnType.Standard.BOOLEAN, "bool", "boolean");
+    register(CsvColumnType.Standard.FLOAT, "real", "float");
+    register(CsvColumnType.Standard.DOUBLE, "double");
+    register(CsvColumnType.Standard.NUMERIC, "numeric", "decimal");
+    register(CsvColumnType.Standard.UUID, "uuid");
+    register(CsvColumnType.Standard.DATE, "date");
+    register(CsvColumnType.Standard.TIMESTAMP, "timestamp");
+    register(CsvColumnType.Standard.TIMESTAMPTZ, "timestamptz");
+    register(CsvColumnType.Standard.JSONB, "json", "jsonb");
+    customizers.orderedStream().forEach(customizer -> customizer.customize(this));
+  }
+
+  /**
+   * Registers a column type under one or more (case-insensitive) names, replacing any existing type with the same name.
+   */
+  public CsvColumnTypes register(CsvColumnType type, String... names) {
+    for (String name : names) {
+      types.put(name.toLowerCase(Locale.ROOT), type);
+    }
+    return this;
+  }
+
+  /**
+   * Returns the column type with the given name or null if there is no such type.
+   */
+  public CsvColumnType resolve(String name) {
+    String key = name.trim().toLowerCase(Locale.ROOT);
+    CsvColumnType type = types.get(key);
+    if (type == null) {
+      type = findEnumType(key);
+      if (type != null) {
+        CsvColumnType existing = types.putIfAbsent(key, type);
+        return existing != null ? existing : type;
+      }
+    }
+    return type;
+  }
+
+  private CsvColumnType findEnumType(String name) {
+    List<String> labels;
+    try {
+      labels = jdbcTemplate.queryForList(ENUM_LABELS, String.class, name);
+    } catch (DataAccessException e) {
+      // Not PostgreSQL (or no access to the catalog)
+      log.debug("Unable to look up enum type {}: {}", name, e.getMessage());
+      return null;
+    }
+    return labels.isEmpty() ? null : new CsvEnumColumnType(name, labels);
+  }
+}
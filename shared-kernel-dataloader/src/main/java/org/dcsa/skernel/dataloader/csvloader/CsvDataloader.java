@@ -1,28 +1,36 @@
 package org.dcsa.skernel.dataloader.csvloader;
 
 
-import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvParser.Feature;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.micrometer.core.instrument.DistributionSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.dcsa.skernel.dataloader.DataloaderAppConfig;
 import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.dcsa.skernel.dataloader.DataloaderDryRun;
+import org.dcsa.skernel.dataloader.DataloaderMetrics;
+import org.dcsa.skernel.dataloader.DataloaderProgress;
+import org.dcsa.skernel.dataloader.DataloaderScheduler;
 import org.dcsa.skernel.dataloader.TypedDataloader;
 import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.StringReader;
-import java.net.URL;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -34,96 +42,376 @@ public class CsvDataloader implements TypedDataloader {
   private final TransactionTemplate transactionTemplate;
   private final CsvMapper csvMapper = new CsvMapper();
   private final CsvDataloaderHistory history;
+  private final CsvDataloaderManifest manifest;
+  private final CsvColumnTypes columnTypes;
+  private final DataloaderScheduler scheduler;
+  private final DataloaderAppConfig appConfig;
+  private final DataloaderMetrics metrics;
 
-  private record Column(String name, Function<String,Object> parser) {}
+  record Column(String name, CsvColumnType type) {}
 
   @Override
   public void loadData(DataloaderSource source) {
-    CsvDataloaderConfig config = loadConfig(source.path());
-    var count = new Object(){ int populated = 0; int total = 0; };
+    loadData(source, new DataloaderProgress(source.path()));
+  }
+
+  @Override
+  @SneakyThrows
+  public void loadData(DataloaderSource source, DataloaderProgress progress) {
+    try (CsvSourceLocation location = CsvSourceLocation.open(source.path())) {
+      loadData(source, location, progress);
+    }
+  }
+
+  private void loadData(DataloaderSource source, CsvSourceLocation location, DataloaderProgress progress) {
+    CsvDataloaderConfig config = loadConfig(location);
+    List<CsvDataloaderEntry> selected = selectEntries(source, config);
+
+    AtomicInteger populated = new AtomicInteger();
+    selected.forEach(entry -> progress.step(entry.table()));
+    CsvDataloaderHistory.Session historySession = history.openSession(selected.stream().map(CsvDataloaderEntry::table).toList());
+    scheduler.run(selected, entry -> dependencies(source, entry, selected), entry -> {
+      DataloaderProgress tableProgress = progress.step(entry.table());
+      tableProgress.start();
+      try {
+        if (historySession.performForEntry(location, source, entry, (CsvSourceFile file, Boolean doAsUpdate) ->
+          readEntry(source, entry.withDefaults(config.defaults()), file, doAsUpdate, tableProgress))) {
+          populated.incrementAndGet();
+          tableProgress.complete();
+        } else {
+          tableProgress.skip();
+        }
+      } catch (RuntimeException e) {
+        tableProgress.fail(e);
+        throw e;
+      }
+    }, appConfig.getMaxTableParallelism());
+    log.info("{}/{} tables populated from {} source {}", populated.get(), config.tables().size(), source.type(), source.path());
+  }
+
+  /**
+   * Parses and converts every row of the selected tables without loading anything. With rollback the rows
+   * are written in a single transaction that is rolled back (each table in a nested transaction, so a table
+   * failing does not prevent validating the tables after it). Without rollback the database time is projected
+   * from the load rates recorded in the history.
+   */
+  @Override
+  @SneakyThrows
+  public void dryRun(DataloaderSource source, DataloaderDryRun dryRun) {
+    try (CsvSourceLocation location = CsvSourceLocation.open(source.path())) {
+      CsvDataloaderConfig config = loadConfig(location);
+      List<CsvDataloaderEntry> selected = selectEntries(source, config);
+      if (dryRun.rollback()) {
+        TransactionTemplate nestedTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        nestedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        transactionTemplate.executeWithoutResult(transaction -> {
+          transaction.setRollbackOnly();
+          scheduler.run(selected, entry -> dependencies(source, entry, selected), entry ->
+            dryRunEntry(source, location, entry.withDefaults(config.defaults()), dryRun, nestedTransaction, null), 1);
+        });
+      } else {
+        CsvDataloaderHistory.LoadRates loadRates = history.loadRates();
+        scheduler.run(selected, entry -> dependencies(source, entry, selected), entry ->
+          dryRunEntry(source, location, entry.withDefaults(config.defaults()), dryRun, null, loadRates),
+          appConfig.getMaxTableParallelism());
+      }
+    }
+  }
+
+  /**
+   * @param loadRates the rates of earlier loads to project the database time with (null with rollback)
+   */
+  private void dryRunEntry(DataloaderSource source, CsvSourceLocation location, CsvDataloaderEntry entry,
+                           DataloaderDryRun dryRun, TransactionTemplate nestedTransaction,
+                           CsvDataloaderHistory.LoadRates loadRates) {
+    DataloaderDryRun.FileResult result = dryRun.file(source.path(), entry.table(), entry.file());
+    Double rowsPerSecond = loadRates != null ? loadRates.rowsPerSecond(entry.table()) : null;
+    if (rowsPerSecond != null) {
+      result.setHistoryRowsPerSecond(rowsPerSecond);
+    }
+    long start = System.nanoTime();
+    try (CsvSourceFile file = location.fetch(entry.file(), null);
+         CsvRowSource contents = openRows(entry, file)) {
+      result.setBytes(file.size());
+      if (!contents.hasNext()) {
+        return;
+      }
+      List<Column> columns = readColumns(entry, contents);
+      CsvRowBinder binder = new CsvRowBinder(entry, columns);
+      if (nestedTransaction == null) {
+        validateRows(entry, contents, binder, null, result);
+      } else {
+        nestedTransaction.executeWithoutResult(transaction -> {
+          boolean refresh = !isEmpty(entry.table());
+          CsvRowWriter writer = createTableWriter(entry, binder, insertSql(entry, columns, refresh), refresh, null);
+          try {
+            validateRows(entry, contents, binder, writer, result);
+          } catch (CsvDataloaderException e) {
+            // The database rejected a row, the nested transaction is rolled back to its savepoint
+            result.error(e.getMessage());
+            transaction.setRollbackOnly();
+          }
+        });
+      }
+    } catch (IOException | RuntimeException e) {
+      result.error("Error in " + entry.file() + " - " + e.getMessage());
+    } finally {
+      result.addParseNanos(System.nanoTime() - start - result.dbNanos());
+    }
+  }
+
+  /**
+   * Reads all rows recording (rather than throwing) parse and conversion errors. Valid rows are passed on
+   * to the writer if not null.
+   */
+  @SneakyThrows
+  private void validateRows(CsvDataloaderEntry entry, CsvRowSource contents, CsvRowBinder binder,
+                            CsvRowWriter writer, DataloaderDryRun.FileResult result) {
+    int lineNo = entry.csvheader() ? 1 : 0;
+    try {
+      while (contents.hasNext()) {
+        String[] values = contents.next();
+        ++lineNo;
+        result.addRow();
+        if (contents.size() != binder.size()) {
+          result.error("Error in " + entry.file() + ":" + lineNo + " - expected " + binder.size() + " columns but was " + contents.size());
+          continue;
+        }
+        binder.normalizeNulls(values);
+        String error = null;
+        for (int i = 0; i < binder.size() && error == null; i++) {
+          if (values[i] != null) {
+            try {
+              binder.parse(i, values[i]);
+            } catch (IllegalArgumentException e) {
+              error = e.getMessage();
+            }
+          }
+        }
+        if (error != null) {
+          result.error("Error in " + entry.file() + ":" + lineNo + " - " + error);
+        } else if (writer != null) {
+          long start = System.nanoTime();
+          writer.write(values, lineNo);
+          result.addDbNanos(System.nanoTime() - start);
+        }
+      }
+      if (writer != null) {
+        long start = System.nanoTime();
+        writer.finish();
+        result.addDbNanos(System.nanoTime() - start);
+      }
+    } catch (RuntimeException e) {
+      if (writer != null) {
+        writer.abort();
+      }
+      throw e;
+    }
+  }
+
+  private List<CsvDataloaderEntry> selectEntries(DataloaderSource source, CsvDataloaderConfig config) {
+    Set<String> excludes = source.excludes();
+    Set<String> includes = source.includes();
+    List<CsvDataloaderEntry> selected = new ArrayList<>();
     config.tables().forEach(entry -> {
-      Set<String> excludes = source.excludes();
-      Set<String> includes = source.includes();
-      count.total++;
       if (excludes != null && (excludes.contains(entry.table()) || excludes.contains(entry.file()))) {
         log.trace("Skipping {} ({}/{}) - excluded", entry.table(), source.path(), entry.file());
       } else if (includes != null && !includes.isEmpty() && !includes.contains(entry.table()) && !includes.contains(entry.file())) {
         log.trace("Skipping {} ({}/{}) - not included", entry.table(), source.path(), entry.file());
       } else {
-        if (history.performForEntry(source, entry, (StringReader reader, Boolean doAsUpdate) ->
-          readEntry(source, entry.withDefaults(config.defaults()), reader, doAsUpdate))) {
-          count.populated++;
-        }
+        selected.add(entry);
       }
     });
-    log.info("{}/{} tables populated from {} source {}", count.populated, count.total, source.type(), source.path());
+    return selected;
+  }
+
+  /**
+   * A table with "dependsOn" depends on the listed tables, a table without "dependsOn" depends on
+   * all tables listed before it (which preserves the order of the csvloader.yml).
+   */
+  private static List<CsvDataloaderEntry> dependencies(DataloaderSource source, CsvDataloaderEntry entry, List<CsvDataloaderEntry> entries) {
+    if (entry.dependsOn() == null) {
+      return entries.subList(0, entries.indexOf(entry));
+    }
+    return entry.dependsOn().stream()
+      .map(table -> entries.stream()
+        .filter(other -> other.table().equals(table))
+        .findFirst()
+        .orElseThrow(() -> new CsvDataloaderException(
+          "Table " + entry.table() + " in " + source.path() + " depends on unknown or excluded table " + table, null)))
+      .toList();
   }
 
   @SneakyThrows
-  private int readEntry(DataloaderSource source, CsvDataloaderEntry entry, StringReader reader, Boolean refresh) {
+  private int readEntry(DataloaderSource source, CsvDataloaderEntry entry, CsvSourceFile file, Boolean refresh, DataloaderProgress progress) {
     String path = source.path();
     log.trace("Populating {} from {}/{}", entry.table(), path, entry.file());
 
-    try (MappingIterator<List<String>> contents = getReader(entry).readValues(reader)) {
+    try (CsvRowSource contents = openRows(entry, file)) {
       if (!contents.hasNext()) {
         log.warn("{}/{} was empty", path, entry.file());
         return 0;
       }
 
-      var lineNo = new Object(){ int value = 0; };
-      List<Column> columns;
-      if (entry.csvheader()) {
-        List<String> firstLine = contents.next();
-        columns = parseColumns(entry.columns() != null ? entry.columns() : firstLine);
-        lineNo.value++;
-      } else {
-        columns = entry.columns() != null ? parseColumns(entry.columns()) : null;
-      }
-      if (columns == null || columns.isEmpty()) {
-        throw new IllegalArgumentException("Unable to determine column names for " + entry.table());
-      }
-
-      String sql = "insert into " + entry.table() +
-        " (" + columns.stream().map(Column::name).collect(Collectors.joining(", ")) +
-        ") values (" +
-        IntStream.range(0, columns.size()).mapToObj(i -> "?").collect(Collectors.joining(", ")) +
-        ")";
-      if (refresh) {
-        if (columns.size() <= 1) {
-          sql = sql + " on conflict do nothing";
-        } else {
-          String primaryKey = entry.primaryKey() != null ? entry.primaryKey() : columns.get(0).name();
-          // PostgreSQL specific way to do "UPSERT"
-          sql = sql + " on conflict (" + primaryKey + ") do update set "
-            + columns.stream()
-            .filter(column -> !primaryKey.equals(column.name()))
-            .map(Column::name)
-            .map(n -> n + "=EXCLUDED." + n)
-            .collect(Collectors.joining(", "));
-        }
-      }
-      log.trace("sql for {} = {}", entry.table(), sql);
-
-      final String finalSql = sql;
+      var lineNo = new Object(){ int value = entry.csvheader() ? 1 : 0; };
+      List<Column> columns = readColumns(entry, contents);
+      CsvRowBinder binder = new CsvRowBinder(entry, columns);
+      final String finalSql = insertSql(entry, columns, refresh);
       var rows = new Object(){ int value = 0; };
+      var read = new Object(){ long rows = 0; long parseNanos = 0; String strategy; };
+      long transactionStart = System.nanoTime();
       transactionTemplate.executeWithoutResult(transaction -> {
-        while (contents.hasNext()) {
-          try {
-            List<String> line = contents.next();
-            jdbcTemplate.update(finalSql, toArgs(entry, lineNo.value++, columns, line));
-            rows.value++;
-          } catch (Exception e) {
-            throw new CsvDataloaderException("Error in " + entry.file() + ":" + lineNo.value + " - " + e.getMessage(), e);
+        CsvRowWriter writer = createWriter(source, entry, binder, finalSql, refresh);
+        read.strategy = strategy(writer, refresh);
+        try {
+          while (contents.hasNext()) {
+            String[] values;
+            long parseStart = System.nanoTime();
+            try {
+              values = contents.next();
+              ++lineNo.value;
+              if (contents.size() != binder.size()) {
+                throw new IllegalArgumentException("expected " + binder.size() + " columns but was " + contents.size());
+              }
+              binder.normalizeNulls(values);
+            } catch (Exception e) {
+              throw new CsvDataloaderException("Error in " + entry.file() + ":" + lineNo.value + " - " + e.getMessage(), e);
+            }
+            read.parseNanos += System.nanoTime() - parseStart;
+            writer.write(values, lineNo.value);
+            read.rows++;
+            progress.addRows(1);
           }
+          rows.value = writer.finish();
+        } catch (RuntimeException e) {
+          writer.abort();
+          throw e;
         }
       });
+      metrics.csvTableLoaded(path, entry.table(), read.strategy, read.parseNanos, System.nanoTime() - transactionStart,
+        read.rows, rows.value);
       return rows.value;
     }
   }
 
-  private ObjectReader getReader(CsvDataloaderEntry entry) {
-    ObjectReader reader = csvMapper.readerForListOf(String.class).with(Feature.WRAP_AS_ARRAY);
-    return entry.emptyIsNull() ? reader.with(Feature.EMPTY_STRING_AS_NULL) : reader;
+  /**
+   * Determines the columns from the configuration or the header (which is consumed).
+   */
+  private List<Column> readColumns(CsvDataloaderEntry entry, CsvRowSource contents) throws IOException {
+    List<Column> columns;
+    if (entry.csvheader()) {
+      contents.next();
+      List<String> firstLine = contents.toList();
+      columns = parseColumns(entry.columns() != null ? entry.columns() : firstLine);
+    } else {
+      columns = entry.columns() != null ? parseColumns(entry.columns()) : null;
+    }
+    if (columns == null || columns.isEmpty()) {
+      throw new IllegalArgumentException("Unable to determine column names for " + entry.table());
+    }
+    return columns;
+  }
+
+  private static String insertSql(CsvDataloaderEntry entry, List<Column> columns, boolean refresh) {
+    String sql = "insert into " + entry.table() +
+      " (" + columns.stream().map(Column::name).collect(Collectors.joining(", ")) +
+      ") values (" +
+      IntStream.range(0, columns.size()).mapToObj(i -> "?").collect(Collectors.joining(", ")) +
+      ")";
+    if (refresh) {
+      if (columns.size() <= 1) {
+        sql = sql + " on conflict do nothing";
+      } else {
+        String primaryKey = entry.primaryKey() != null ? entry.primaryKey() : columns.get(0).name();
+        // PostgreSQL specific way to do "UPSERT"
+        sql = sql + " on conflict (" + primaryKey + ") do update set "
+          + columns.stream()
+          .filter(column -> !primaryKey.equals(column.name()))
+          .map(Column::name)
+          .map(n -> n + "=EXCLUDED." + n)
+          .collect(Collectors.joining(", "));
+      }
+    }
+    log.trace("sql for {} = {}", entry.table(), sql);
+    return sql;
+  }
+
+  /**
+   * Uses the parallel parser if selected for the entry and the file can be memory-mapped, otherwise Jackson.
+   */
+  private CsvRowSource openRows(CsvDataloaderEntry entry, CsvSourceFile file) throws IOException {
+    if (entry.parser() == CsvDataloaderConfig.Parser.PARALLEL) {
+      Path uncompressedPath = file.uncompressedPath();
+      if (uncompressedPath != null) {
+        log.trace("Using parallel parser for {}", file.url());
+        return new CsvParallelRowReader(uncompressedPath);
+      }
+      log.debug("Unable to use parallel parser for {} (not an uncompressed file), using default parser", file.url());
+    }
+    Reader reader = file.openReader();
+    try {
+      return new CsvRowReader(csvMapper.getFactory().createParser(reader));
+    } catch (IOException | RuntimeException e) {
+      reader.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Uses COPY when populating an empty table for the first time and falls back to batched inserts
+   * otherwise (or if the database does not support COPY). Incremental tables only get the added and
+   * changed rows passed on, other tables with "refresh: STAGING" are refreshed through a staging table.
+   */
+  private CsvRowWriter createWriter(DataloaderSource source, CsvDataloaderEntry entry, CsvRowBinder binder, String sql, boolean refresh) {
+    if (refresh && !entry.incremental() && entry.refresh() == CsvDataloaderConfig.Refresh.STAGING) {
+      log.trace("Using staging table for {}", entry.table());
+      return new CsvStagingWriter(jdbcTemplate, entry, binder, metrics.csvBatchSize(source.path(), entry.table(), "staging"));
+    }
+    String strategy = entry.incremental() ? "incremental" : refresh ? "upsert" : "insert";
+    CsvRowWriter writer = createTableWriter(entry, binder, sql, refresh, metrics.csvBatchSize(source.path(), entry.table(), strategy));
+    if (!entry.incremental()) {
+      return writer;
+    }
+    try {
+      return new CsvIncrementalWriter(jdbcTemplate, manifest, entry, binder, writer, refresh);
+    } catch (RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+  }
+
+  /**
+   * @param batchSizes records the size of each batch if batched inserts are used (may be null)
+   */
+  private CsvRowWriter createTableWriter(CsvDataloaderEntry entry, CsvRowBinder binder, String sql, boolean refresh,
+                                         DistributionSummary batchSizes) {
+    if (!refresh && isEmpty(entry.table())) {
+      CsvRowWriter copyWriter = jdbcTemplate.execute((ConnectionCallback<CsvRowWriter>) connection ->
+        CsvCopyWriter.start(connection, entry, binder));
+      if (copyWriter != null) {
+        log.trace("Using copy for {}", entry.table());
+        return copyWriter;
+      }
+    }
+    return new CsvBatchInsertWriter(jdbcTemplate, entry, binder, sql, batchSizes);
+  }
+
+  /**
+   * The strategy used to write the rows, as reported in the metrics.
+   */
+  private static String strategy(CsvRowWriter writer, boolean refresh) {
+    if (writer instanceof CsvStagingWriter) {
+      return "staging";
+    } else if (writer instanceof CsvIncrementalWriter) {
+      return "incremental";
+    } else if (writer instanceof CsvCopyWriter) {
+      return "copy";
+    }
+    return refresh ? "upsert" : "insert";
+  }
+
+  private boolean isEmpty(String table) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select not exists (select 1 from " + table + ")", Boolean.class));
   }
 
   private List<Column> parseColumns(List<String> names) {
@@ -133,19 +421,14 @@ public class CsvDataloader implements TypedDataloader {
   private Column parseColumn(String name) {
     int index = name.indexOf(':');
     if (index == -1) {
-      return new Column(cleanColumnName(name), s -> s);
+      return new Column(cleanColumnName(name), CsvColumnType.Standard.STRING);
     } else {
       String type = name.substring(index + 1);
-      Function<String, Object> parser = switch (type) {
-        case "int", "integer" -> Integer::parseInt;
-        case "long" -> Long::parseLong;
-        case "bool", "boolean" -> Boolean::parseBoolean;
-        case "real", "float" -> Float::parseFloat;
-        case "double" -> Double::parseDouble;
-        case "str", "string" -> s -> s;
-        default -> throw new IllegalArgumentException("Unknown column type: " + type + " (" + name + ")");
-      };
-      return new Column(cleanColumnName(name.substring(0, index)), parser);
+      CsvColumnType columnType = columnTypes.resolve(type);
+      if (columnType == null) {
+        throw new IllegalArgumentException("Unknown column type: " + type + " (" + name + ")");
+      }
+      return new Column(cleanColumnName(name.substring(0, index)), columnType);
     }
   }
 
@@ -157,25 +440,11 @@ public class CsvDataloader implements TypedDataloader {
       .toLowerCase(Locale.ROOT);
   }
 
-  private Object[] toArgs(CsvDataloaderEntry entry, int lineNo, List<Column> columns, List<String> data) {
-    if (columns.size() != data.size()) {
-      throw new IllegalArgumentException(
-        "Error in " + entry.file() + ":" + lineNo +" - expected " + columns.size() + " columns but was " + data.size());
-    }
-    return IntStream.range(0, columns.size()).mapToObj(i -> {
-      String arg = data.get(i);
-      if (arg == null || (entry.otherNullValues() != null && entry.otherNullValues().contains(arg))) {
-        return null;
-      } else {
-        return columns.get(i).parser.apply(arg);
-      }
-    }).toArray();
-  }
-
   @SneakyThrows
-  private CsvDataloaderConfig loadConfig(String path) {
+  private CsvDataloaderConfig loadConfig(CsvSourceLocation location) {
     ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-    URL configFile = new URL(path + "/csvloader.yml");
-    return mapper.readValue(configFile, CsvDataloaderConfig.class);
+    try (InputStream configFile = location.openConfig()) {
+      return mapper.readValue(configFile, CsvDataloaderConfig.class);
+    }
   }
 }
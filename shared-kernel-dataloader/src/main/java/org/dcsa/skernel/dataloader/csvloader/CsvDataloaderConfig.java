@@ -8,10 +8,29 @@ public record CsvDataloaderConfig(
   CsvDataloaderDefaults defaults,
   List<CsvDataloaderEntry> tables
 ) {
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  /**
+   * The engine used to parse the csv files. PARALLEL memory-maps the file and tokenizes it in parallel, it is
+   * only used for uncompressed files (others fall back to DEFAULT).
+   */
+  public enum Parser { DEFAULT, PARALLEL }
+
+  /**
+   * How a table is refreshed when its file has changed. UPSERT writes the rows directly to the table, STAGING
+   * loads them into an UNLOGGED staging table first and applies them with a few set based statements at the end.
+   */
+  public enum Refresh { UPSERT, STAGING }
+
   public record CsvDataloaderDefaults(
     boolean csvheader,
     boolean emptyIsNull,
-    List<String> otherNullValues
+    List<String> otherNullValues,
+    Integer batchSize,
+    boolean incremental,
+    boolean deleteRemoved,
+    Parser parser,
+    Refresh refresh
   ) { }
 
   public record CsvDataloaderEntry(
@@ -21,7 +40,13 @@ public record CsvDataloaderConfig(
     Boolean emptyIsNull,
     List<String> otherNullValues,
     List<String> columns,
-    String primaryKey
+    String primaryKey,
+    Integer batchSize,
+    List<String> dependsOn,
+    Boolean incremental,
+    Boolean deleteRemoved,
+    Parser parser,
+    Refresh refresh
   ) {
     @Builder
     public CsvDataloaderEntry {}
@@ -35,6 +60,12 @@ public record CsvDataloaderConfig(
         .otherNullValues(otherNullValues != null ? otherNullValues : defaults.otherNullValues())
         .columns(columns)
         .primaryKey(primaryKey)
+        .batchSize(batchSize != null ? batchSize : defaults.batchSize() != null ? defaults.batchSize() : DEFAULT_BATCH_SIZE)
+        .dependsOn(dependsOn)
+        .incremental(incremental != null ? incremental : defaults.incremental())
+        .deleteRemoved(deleteRemoved != null ? deleteRemoved : defaults.deleteRemoved())
+        .parser(parser != null ? parser : defaults.parser() != null ? defaults.parser() : Parser.DEFAULT)
+        .refresh(refresh != null ? refresh : defaults.refresh() != null ? defaults.refresh() : Refresh.UPSERT)
         .build();
     }
   }
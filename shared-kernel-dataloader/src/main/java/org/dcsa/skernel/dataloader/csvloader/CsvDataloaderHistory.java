@@ -3,32 +3,47 @@ package org.dcsa.skernel.dataloader.csvloader;
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
-import lombok.Synchronized;
 import lombok.extern.slf4j.Slf4j;
 import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.dcsa.skernel.dataloader.DataloaderMetrics;
 import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
-import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.ResultSetExtractor;
-import org.springframework.security.crypto.codec.Hex;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.io.StringWriter;
+import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.OffsetDateTime;
-import java.util.Scanner;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
 @Component
 public class CsvDataloaderHistory {
+  private static final String HISTORY_TABLE = "csvloader_history";
+
   private final JdbcTemplate jdbcTemplate;
-  private boolean initialized = false;
+  private final TransactionTemplate transactionTemplate;
+  private final DataloaderMetrics metrics;
+  private volatile boolean initialized = false;
 
   private final static String[] CREATE_HISTORY = {"""
     create table csvloader_history (
@@ -36,16 +51,37 @@ public class CsvDataloaderHistory {
       source text not null,
       checksum varchar(64) not null,
       rows_affected integer not null,
-      created timestamp with time zone not null
+      created timestamp with time zone not null,
+      etag text null,
+      last_modified text null,
+      content_length bigint null,
+      load_millis bigint null
     )""",
     "create index table_name_idx on csvloader_history (table_name)",
     "create index created_idx on csvloader_history (created)"
   };
-  private final static String SELECT_HISTORY = """
-    select * from csvloader_history where table_name = ? order by created desc limit 1
+  /**
+   * The columns added to the history table after it was first released, added to existing tables if missing.
+   */
+  private final static List<String> UPGRADE_COLUMNS = List.of(
+    "etag text null",
+    "last_modified text null",
+    "content_length bigint null",
+    "load_millis bigint null"
+  );
+  private final static String SELECT_LATEST_HISTORY = """
+    select distinct on (table_name) * from csvloader_history where table_name in (%s) order by table_name, created desc
     """;
   private final static String INSERT_HISTORY = """
-    insert into csvloader_history (table_name, source, checksum, rows_affected, created) values (?,?,?,?,?)
+    insert into csvloader_history (table_name, source, checksum, rows_affected, created, etag, last_modified, content_length, load_millis)
+      values (?,?,?,?,?,?,?,?,?)
+    """;
+  private final static String SELECT_LOAD_TOTALS = """
+    select table_name, sum(rows_affected) as total_rows, sum(load_millis) as total_millis
+      from csvloader_history where load_millis > 0 group by table_name
+    """;
+  private final static String UPDATE_HISTORY_VERSION = """
+    update csvloader_history set etag = ?, last_modified = ?, content_length = ? where table_name = ? and created = ?
     """;
 
   private record HistoryEntry(
@@ -53,80 +89,232 @@ public class CsvDataloaderHistory {
     String source,
     String checksum,
     int rowsAffected,
-    Timestamp created
+    Timestamp created,
+    CsvSourceFile.Version version,
+    Long loadMillis
   ) {
     @Builder(toBuilder = true)
     public HistoryEntry {}
-
-    public void insert(JdbcTemplate jdbcTemplate) {
-      jdbcTemplate.update(INSERT_HISTORY, table, source, checksum, rowsAffected, created);
-    }
   }
 
-  private final static ResultSetExtractor<HistoryEntry> historyEntryExtractor = (ResultSet rs) -> rs.next() ? HistoryEntry.builder()
+  private final static RowMapper<HistoryEntry> historyEntryMapper = (ResultSet rs, int rowNum) -> HistoryEntry.builder()
       .table(rs.getString("table_name"))
       .source(rs.getString("source"))
       .checksum(rs.getString("checksum"))
       .created(rs.getTimestamp("created"))
-      .build() : null;
+      .version(new CsvSourceFile.Version(
+        rs.getString("etag"),
+        rs.getString("last_modified"),
+        rs.getObject("content_length", Long.class)))
+      .build();
 
+  /**
+   * As {@link #performForReader(DataloaderSource, CsvDataloaderEntry, BiFunction)}, with the whole file read
+   * into memory. Prefer {@link #performForReader(DataloaderSource, CsvDataloaderEntry, BiFunction)}, which
+   * streams the file.
+   */
   public boolean performForEntry(DataloaderSource source, CsvDataloaderEntry entry, BiFunction<StringReader, Boolean, Integer> consumer) {
-    HistoryEntry historyEntry = loadEntry(entry.table());
-    String url = source.path() + "/" + entry.file();
-    String fileContents = readUrl(url);
-    String checksum = checksum(fileContents);
-
-    int rowsAffected;
-    if (historyEntry != null) {
-      if (checksum.equals(historyEntry.checksum)) {
-        log.trace("Checksum match for {}", url);
-        return false;
+    return performForReader(source, entry, (reader, refresh) -> {
+      StringWriter contents = new StringWriter();
+      try {
+        reader.transferTo(contents);
+      } catch (IOException e) {
+        throw new CsvDataloaderException("Unable to read " + entry.file() + " - " + e.getMessage(), e);
       }
-      rowsAffected = switch (source.onChecksumError()) {
-        case FAIL -> throw new CsvDataloaderException("Checksum validation failed for " + url, null);
-        case REFRESH -> consumer.apply(new StringReader(fileContents), true);
-      };
-    } else {
-      rowsAffected = consumer.apply(new StringReader(fileContents), false);
+      return consumer.apply(new StringReader(contents.toString()), refresh);
+    });
+  }
+
+  /**
+   * Loads the latest history of a single table, performs the entry and records it. Prefer
+   * {@link #openSession(Collection)} when loading several tables.
+   */
+  @SneakyThrows
+  public boolean performForReader(DataloaderSource source, CsvDataloaderEntry entry, BiFunction<Reader, Boolean, Integer> consumer) {
+    try (CsvSourceLocation location = CsvSourceLocation.open(source.path())) {
+      return openSession(List.of(entry.table())).performForEntry(location, source, entry, (file, refresh) -> {
+        try (Reader reader = file.openReader()) {
+          return consumer.apply(reader, refresh);
+        } catch (IOException e) {
+          throw new CsvDataloaderException("Unable to read " + file.url() + " - " + e.getMessage(), e);
+        }
+      });
     }
-    HistoryEntry.builder()
-      .table(entry.table())
-      .source(url)
-      .checksum(checksum)
-      .rowsAffected(rowsAffected)
-      .created(Timestamp.from(OffsetDateTime.now().toInstant()))
-      .build()
-      .insert(jdbcTemplate);
-    return true;
   }
 
-  @Synchronized
-  private HistoryEntry loadEntry(String table) {
-    if (!initialized) {
-      try {
-        return jdbcTemplate.query(SELECT_HISTORY, historyEntryExtractor, table);
-      } catch (BadSqlGrammarException e) {
-        log.info("Creating history table csvloader_history");
-        jdbcTemplate.batchUpdate(CREATE_HISTORY);
-        initialized = true;
-        return null;
-      }
-    } else {
-      return jdbcTemplate.query(SELECT_HISTORY, historyEntryExtractor, table);
+  /**
+   * The rows written per second by the recorded loads of each table and of all tables together.
+   */
+  public record LoadRates(Map<String, Double> tables, Double overall) {
+    /**
+     * The rate of the table, or of all tables if the table has no recorded loads, or null if there are none.
+     */
+    public Double rowsPerSecond(String table) {
+      return tables.getOrDefault(table, overall);
     }
   }
 
-  @SneakyThrows
-  private String checksum(String str) {
-    byte[] sha = MessageDigest.getInstance("SHA3-256").digest(str.getBytes(StandardCharsets.UTF_8));
-    return new String(Hex.encode(sha));
+  /**
+   * Computes the load rates from the rows and durations of the recorded loads (the time to parse and write the
+   * rows, loads recorded without a duration are ignored).
+   */
+  public LoadRates loadRates() {
+    initialize();
+    Map<String, Double> tables = new HashMap<>();
+    var totals = new Object(){ long rows; long millis; };
+    jdbcTemplate.query(SELECT_LOAD_TOTALS, (RowCallbackHandler) rs -> {
+      long rows = rs.getLong("total_rows");
+      long millis = rs.getLong("total_millis");
+      tables.put(rs.getString("table_name"), rows * 1000.0 / millis);
+      totals.rows += rows;
+      totals.millis += millis;
+    });
+    return new LoadRates(tables, totals.millis > 0 ? totals.rows * 1000.0 / totals.millis : null);
   }
 
-  @SneakyThrows
-  private String readUrl(String url) {
-    try (Scanner scanner = new Scanner(new URL(url).openStream(), StandardCharsets.UTF_8)) {
-      scanner.useDelimiter("\\A");
-      return scanner.hasNext() ? scanner.next() : "";
+  /**
+   * Loads the latest history of all the tables with a single query. The returned session can be used
+   * concurrently for the tables.
+   */
+  public Session openSession(Collection<String> tables) {
+    initialize();
+    Map<String, HistoryEntry> latest = new ConcurrentHashMap<>();
+    List<String> distinctTables = tables.stream().distinct().toList();
+    if (!distinctTables.isEmpty()) {
+      long start = System.nanoTime();
+      String sql = SELECT_LATEST_HISTORY.formatted(distinctTables.stream().map(t -> "?").collect(Collectors.joining(",")));
+      jdbcTemplate.query(sql, historyEntryMapper, distinctTables.toArray())
+        .forEach(historyEntry -> latest.put(historyEntry.table(), historyEntry));
+      metrics.csvHistory("read", System.nanoTime() - start);
+    }
+    return new Session(latest);
+  }
+
+  public class Session {
+    private final Map<String, HistoryEntry> latest;
+
+    private Session(Map<String, HistoryEntry> latest) {
+      this.latest = latest;
+    }
+
+    /**
+     * Loads the entry unless it is unchanged. The history of the load is written in the same transaction
+     * as the load (the consumer joins it), so a table is never committed without its history.
+     */
+    @SneakyThrows
+    boolean performForEntry(CsvSourceLocation location, DataloaderSource source, CsvDataloaderEntry entry, BiFunction<CsvSourceFile, Boolean, Integer> consumer) {
+      HistoryEntry historyEntry = latest.get(entry.table());
+      String url = location.url(entry.file());
+
+      // The validators are only meaningful if the file was loaded from the same url last time
+      CsvSourceFile.Version knownVersion = historyEntry != null && url.equals(historyEntry.source) ? historyEntry.version : null;
+      try (CsvSourceFile file = location.fetch(entry.file(), knownVersion)) {
+        if (file.isUnchanged()) {
+          log.trace("Unchanged since last load {}", url);
+          metrics.csvTableSkipped(source.path(), entry.table(), "unchanged");
+          return false;
+        }
+        metrics.csvFetched(source.path(), entry.table(), file.size(), file.checksumNanos());
+        String checksum = file.checksum();
+        if (historyEntry != null && checksum.equals(historyEntry.checksum)) {
+          log.trace("Checksum match for {}", url);
+          if (url.equals(historyEntry.source) && !file.version().isEmpty() && !file.version().equals(historyEntry.version)) {
+            // Remember the new validators, so the file does not need to be fetched and hashed next time
+            CsvSourceFile.Version version = file.version();
+            long start = System.nanoTime();
+            jdbcTemplate.update(UPDATE_HISTORY_VERSION, version.etag(), version.lastModified(), version.contentLength(),
+              historyEntry.table, historyEntry.created);
+            metrics.csvHistory("write", System.nanoTime() - start);
+          }
+          metrics.csvTableSkipped(source.path(), entry.table(), "checksum");
+          return false;
+        }
+        HistoryEntry loaded = transactionTemplate.execute(transaction -> {
+          long loadStart = System.nanoTime();
+          int rowsAffected;
+          if (historyEntry != null) {
+            rowsAffected = switch (source.onChecksumError()) {
+              case FAIL -> throw new CsvDataloaderException("Checksum validation failed for " + url, null);
+              case REFRESH -> consumer.apply(file, true);
+            };
+          } else {
+            rowsAffected = consumer.apply(file, false);
+          }
+          HistoryEntry inserted = HistoryEntry.builder()
+            .table(entry.table())
+            .source(url)
+            .checksum(checksum)
+            .rowsAffected(rowsAffected)
+            .created(Timestamp.from(OffsetDateTime.now().toInstant()))
+            .version(file.version())
+            .loadMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart))
+            .build();
+          insert(inserted);
+          return inserted;
+        });
+        // Later files for the same table see this load as the latest history
+        latest.put(entry.table(), loaded);
+        return true;
+      }
+    }
+
+    private void insert(HistoryEntry historyEntry) {
+      long start = System.nanoTime();
+      CsvSourceFile.Version version = historyEntry.version;
+      jdbcTemplate.update(INSERT_HISTORY, historyEntry.table, historyEntry.source, historyEntry.checksum,
+        historyEntry.rowsAffected, historyEntry.created,
+        version != null ? version.etag() : null,
+        version != null ? version.lastModified() : null,
+        version != null ? version.contentLength() : null,
+        historyEntry.loadMillis);
+      metrics.csvHistory("write", System.nanoTime() - start);
     }
   }
+
+  /**
+   * Creates the history table if the database metadata shows that it does not exist, and adds the columns
+   * introduced later to existing tables that do not have them (altering the table takes an exclusive lock, so
+   * it is only done when a column is missing).
+   */
+  private void initialize() {
+    if (!initialized) {
+      synchronized (this) {
+        if (!initialized) {
+          Set<String> columns = historyColumns();
+          if (columns.isEmpty()) {
+            log.info("Creating history table csvloader_history");
+            jdbcTemplate.batchUpdate(CREATE_HISTORY);
+          } else {
+            List<String> missing = UPGRADE_COLUMNS.stream()
+              .filter(column -> !columns.contains(column.substring(0, column.indexOf(' '))))
+              .toList();
+            if (!missing.isEmpty()) {
+              log.info("Adding columns to history table csvloader_history: {}", missing);
+              jdbcTemplate.batchUpdate(missing.stream()
+                .map(column -> "alter table csvloader_history add column if not exists " + column)
+                .toArray(String[]::new));
+            }
+          }
+          initialized = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * The (lower case) column names of the history table, empty if it does not exist.
+   */
+  private Set<String> historyColumns() {
+    return jdbcTemplate.execute((ConnectionCallback<Set<String>>) connection -> {
+      DatabaseMetaData metaData = connection.getMetaData();
+      String table = metaData.storesUpperCaseIdentifiers() ? HISTORY_TABLE.toUpperCase(Locale.ROOT) : HISTORY_TABLE;
+      Set<String> columns = new HashSet<>();
+      try (ResultSet rs = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, null)) {
+        while (rs.next()) {
+          columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+        }
+      }
+      return columns;
+    });
+  }
 }
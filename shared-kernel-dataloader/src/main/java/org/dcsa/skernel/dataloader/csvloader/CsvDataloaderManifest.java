@@ -0,0 +1,101 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a hash of each row loaded into a table (keyed by the primary key of the row) in the table
+ * "csvloader_row_hash". It is used to determine which rows were added, changed or removed when a csv file
+ * is loaded incrementally.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CsvDataloaderManifest {
+  private final JdbcTemplate jdbcTemplate;
+  private volatile boolean initialized = false;
+
+  private final static String[] CREATE_MANIFEST = {"""
+    create table if not exists csvloader_row_hash (
+      table_name varchar(100) not null,
+      row_key text not null,
+      row_hash varchar(64) not null,
+      primary key (table_name, row_key)
+    )"""
+  };
+  private final static String SELECT_MANIFEST = """
+    select row_key, row_hash from csvloader_row_hash where table_name = ?
+    """;
+  private final static String UPSERT_MANIFEST = """
+    insert into csvloader_row_hash (table_name, row_key, row_hash) values (?,?,?)
+      on conflict (table_name, row_key) do update set row_hash = excluded.row_hash
+    """;
+  private final static String DELETE_MANIFEST_ROW = """
+    delete from csvloader_row_hash where table_name = ? and row_key = ?
+    """;
+  private final static String DELETE_MANIFEST = """
+    delete from csvloader_row_hash where table_name = ?
+    """;
+
+  /**
+   * Returns the hashes of the rows currently loaded in the table.
+   */
+  Map<String, String> load(String table) {
+    initialize();
+    Map<String, String> hashes = new HashMap<>();
+    jdbcTemplate.query(SELECT_MANIFEST, rs -> {
+      hashes.put(rs.getString("row_key"), rs.getString("row_hash"));
+    }, table);
+    return hashes;
+  }
+
+  /**
+   * Removes all hashes for the table.
+   */
+  void clear(String table) {
+    initialize();
+    jdbcTemplate.update(DELETE_MANIFEST, table);
+  }
+
+  /**
+   * Stores the hashes of added/changed rows and removes the hashes of removed rows.
+   */
+  void update(String table, Map<String, String> changed, Collection<String> removed, int batchSize) {
+    initialize();
+    List<Object[]> upserts = changed.entrySet().stream()
+      .map(e -> new Object[] {table, e.getKey(), e.getValue()})
+      .toList();
+    List<Object[]> deletes = removed.stream()
+      .map(key -> new Object[] {table, key})
+      .toList();
+    jdbcTemplate.batchUpdate(UPSERT_MANIFEST, upserts, batchSize, (ps, args) -> {
+      for (int i = 0; i < args.length; i++) {
+        ps.setObject(i + 1, args[i]);
+      }
+    });
+    jdbcTemplate.batchUpdate(DELETE_MANIFEST_ROW, deletes, batchSize, (ps, args) -> {
+      for (int i = 0; i < args.length; i++) {
+        ps.setObject(i + 1, args[i]);
+      }
+    });
+  }
+
+  private void initialize() {
+    if (!initialized) {
+      synchronized (this) {
+        if (!initialized) {
+          log.debug("Ensuring history table csvloader_row_hash exists");
+          jdbcTemplate.batchUpdate(CREATE_MANIFEST);
+          initialized = true;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A PostgreSQL enum type. Values are checked against the labels of the enum and sent with an unspecified type,
+ * so PostgreSQL converts them to the enum of the column.
+ */
+class CsvEnumColumnType implements CsvColumnType {
+  private final String name;
+  private final Set<String> labels;
+
+  CsvEnumColumnType(String name, List<String> labels) {
+    this.name = name;
+    this.labels = new LinkedHashSet<>(labels);
+  }
+
+  @Override
+  public int sqlType() {
+    return Types.OTHER;
+  }
+
+  @Override
+  public Object parse(String value) {
+    if (!labels.contains(value)) {
+      throw new IllegalArgumentException("Not a value of " + name + " (expected one of " + labels + ")");
+    }
+    return value;
+  }
+
+  @Override
+  public void bind(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+    statement.setObject(parameterIndex, parse(value), Types.OTHER);
+  }
+
+  @Override
+  public String format(String value) {
+    return (String) parse(value);
+  }
+}
@@ -0,0 +1,173 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.codec.Hex;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Only passes rows that were added or changed since the last load on to the underlying writer.
+ *
+ * <p>Rows are identified by their primary key and compared using a hash of their converted values, the hashes
+ * of the rows loaded last time are kept by {@link CsvDataloaderManifest}. The key of a row in the manifest is the
+ * canonical form of its primary key value, or of its primary key values separated by a unit separator (U+001F) for
+ * a composite primary key. Rows that are no longer present in the csv file are deleted from the table if
+ * "deleteRemoved" is set.</p>
+ */
+@Slf4j
+class CsvIncrementalWriter implements CsvRowWriter {
+  private static final byte NULL_MARKER = 0;
+  private static final byte SEPARATOR = 31;
+  private static final char KEY_SEPARATOR = (char) SEPARATOR;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CsvDataloaderManifest manifest;
+  private final CsvDataloaderEntry entry;
+  private final CsvRowBinder binder;
+  private final int[] primaryKeyIndexes;
+  private final CsvRowWriter delegate;
+  private final Map<String, String> previous;
+  private final Map<String, String> changed = new HashMap<>();
+  private final MessageDigest digest;
+  private int unchanged = 0;
+
+  /**
+   * @param refresh whether the table has been loaded before, if not any existing hashes are discarded
+   */
+  CsvIncrementalWriter(JdbcTemplate jdbcTemplate, CsvDataloaderManifest manifest, CsvDataloaderEntry entry,
+                       CsvRowBinder binder, CsvRowWriter delegate, boolean refresh) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.manifest = manifest;
+    this.entry = entry;
+    this.binder = binder;
+    this.delegate = delegate;
+    List<String> primaryKey = CsvStagingWriter.primaryKey(entry, binder.names());
+    this.primaryKeyIndexes = new int[primaryKey.size()];
+    for (int i = 0; i < primaryKeyIndexes.length; i++) {
+      primaryKeyIndexes[i] = binder.names().indexOf(primaryKey.get(i));
+      if (primaryKeyIndexes[i] < 0) {
+        throw new CsvDataloaderException("Primary key " + primaryKey.get(i) + " is not a column in " + entry.file(), null);
+      }
+    }
+    if (refresh) {
+      this.previous = manifest.load(entry.table());
+    } else {
+      manifest.clear(entry.table());
+      this.previous = new HashMap<>();
+    }
+    try {
+      this.digest = MessageDigest.getInstance("SHA3-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void write(String[] values, int lineNo) {
+    for (int index : primaryKeyIndexes) {
+      if (values[index] == null) {
+        throw new CsvDataloaderException("Error in " + entry.file() + ":" + lineNo + " - primary key " + binder.name(index) + " is null", null);
+      }
+    }
+    String key;
+    String hash;
+    try {
+      key = key(values);
+      hash = hash(values);
+    } catch (IllegalArgumentException e) {
+      digest.reset();
+      throw new CsvDataloaderException("Error in " + entry.file() + ":" + lineNo + " - " + e.getMessage(), e);
+    }
+    String previousHash = previous.remove(key);
+    if (hash.equals(previousHash)) {
+      unchanged++;
+    } else {
+      changed.put(key, hash);
+      delegate.write(values, lineNo);
+    }
+  }
+
+  @Override
+  public int finish() {
+    int rows = delegate.finish();
+    if (entry.deleteRemoved() && !previous.isEmpty()) {
+      String sql = "delete from " + entry.table() + " where " + Arrays.stream(primaryKeyIndexes)
+        .mapToObj(index -> binder.name(index) + " = ?")
+        .collect(Collectors.joining(" and "));
+      List<Object[]> keys = previous.keySet().stream()
+        .map(this::parseKey)
+        .toList();
+      jdbcTemplate.batchUpdate(sql, keys, Math.max(1, entry.batchSize()), (ps, args) -> {
+        for (int i = 0; i < args.length; i++) {
+          ps.setObject(i + 1, args[i]);
+        }
+      });
+      rows += keys.size();
+    }
+    log.debug("{}: {} rows added or changed, {} unchanged, {} removed{}", entry.table(), changed.size(), unchanged,
+      previous.size(), entry.deleteRemoved() ? "" : " (kept)");
+    manifest.update(entry.table(), changed, previous.keySet(), Math.max(1, entry.batchSize()));
+    return rows;
+  }
+
+  @Override
+  public void abort() {
+    delegate.abort();
+  }
+
+  /**
+   * The canonical form of the primary key value(s) of the row.
+   */
+  private String key(String[] values) {
+    if (primaryKeyIndexes.length == 1) {
+      return binder.format(primaryKeyIndexes[0], values[primaryKeyIndexes[0]]);
+    }
+    StringBuilder key = new StringBuilder();
+    for (int index : primaryKeyIndexes) {
+      if (!key.isEmpty()) {
+        key.append(KEY_SEPARATOR);
+      }
+      key.append(binder.format(index, values[index]));
+    }
+    return key.toString();
+  }
+
+  /**
+   * Converts a key created by {@link #key(String[])} back to the primary key values.
+   */
+  private Object[] parseKey(String key) {
+    String[] parts = primaryKeyIndexes.length == 1 ? new String[] {key} : key.split(String.valueOf(KEY_SEPARATOR), -1);
+    if (parts.length != primaryKeyIndexes.length) {
+      throw new CsvDataloaderException("Invalid row key in manifest of " + entry.table() + ": " + key, null);
+    }
+    Object[] primaryKey = new Object[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      primaryKey[i] = binder.parse(primaryKeyIndexes[i], parts[i]);
+    }
+    return primaryKey;
+  }
+
+  /**
+   * Hashes the canonical form of the values, so the hashes match those of earlier loads for the same data.
+   */
+  private String hash(String[] values) {
+    for (int i = 0; i < binder.size(); i++) {
+      if (values[i] == null) {
+        digest.update(NULL_MARKER);
+      } else {
+        digest.update(binder.format(i, values[i]).getBytes(StandardCharsets.UTF_8));
+      }
+      digest.update(SEPARATOR);
+    }
+    return new String(Hex.encode(digest.digest()));
+  }
+}
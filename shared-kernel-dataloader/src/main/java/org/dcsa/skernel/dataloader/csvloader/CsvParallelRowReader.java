@@ -0,0 +1,289 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads a (large, uncompressed) csv file by memory-mapping it and tokenizing segments of it in parallel.
+ *
+ * <p>A splitter thread scans the file once to find line ends outside of quoted values and hands each segment of
+ * about {@link #SEGMENT_SIZE} bytes to a fork-join pool for tokenizing. The tokenized segments are passed on in
+ * file order through a bounded queue, so parsing runs ahead of (and overlaps with) the writes to the database
+ * without holding more than {@link #MAX_QUEUED_SEGMENTS} tokenized segments in memory (plus the one being read),
+ * however large the pool is.</p>
+ *
+ * <p>Supports the same csv as the Jackson based {@link CsvRowReader}: comma separated values, optionally quoted
+ * with double quotes (doubled within quoted values), lines ending in \n or \r\n and an optional UTF-8 byte order
+ * mark.</p>
+ */
+@Slf4j
+class CsvParallelRowReader implements CsvRowSource {
+  static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+  // Bounds the memory held by parsed segments regardless of the parallelism of the pool
+  static final int MAX_QUEUED_SEGMENTS = 4;
+  private static final int SCAN_WINDOW = 64 * 1024 * 1024;
+  private static final Future<String[][]> END = CompletableFuture.completedFuture(null);
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  // States used when scanning for line ends outside quoted values
+  private static final byte FIELD_START = 0;
+  private static final byte UNQUOTED = 1;
+  private static final byte QUOTED = 2;
+  private static final byte QUOTE_IN_QUOTED = 3;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final int segmentSize;
+  private final ForkJoinPool pool;
+  private final BlockingQueue<Future<String[][]>> segments;
+  private final Thread splitter;
+  private volatile boolean closed = false;
+
+  private String[][] rows = new String[0][];
+  private int rowIndex = 0;
+  private String[] current;
+  private boolean done = false;
+
+  CsvParallelRowReader(Path path) throws IOException {
+    this(path, SEGMENT_SIZE, ForkJoinPool.commonPool());
+  }
+
+  CsvParallelRowReader(Path path, int segmentSize, ForkJoinPool pool) throws IOException {
+    this.path = path;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.segmentSize = segmentSize;
+    this.pool = pool;
+    this.segments = new ArrayBlockingQueue<>(MAX_QUEUED_SEGMENTS);
+    this.splitter = new Thread(this::split, "csvloader-split-" + threadCount.incrementAndGet());
+    splitter.setDaemon(true);
+    splitter.start();
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    while (rowIndex >= rows.length) {
+      if (done) {
+        return false;
+      }
+      String[][] next = takeSegment();
+      if (next == null) {
+        done = true;
+        return false;
+      }
+      rows = next;
+      rowIndex = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public String[] next() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    current = rows[rowIndex];
+    // Let the rows already consumed be garbage collected
+    rows[rowIndex++] = null;
+    return current;
+  }
+
+  @Override
+  public int size() {
+    return current.length;
+  }
+
+  @Override
+  public List<String> toList() {
+    return Arrays.asList(Arrays.copyOf(current, current.length));
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    splitter.interrupt();
+    for (Future<String[][]> segment; (segment = segments.poll()) != null; ) {
+      segment.cancel(false);
+    }
+    channel.close();
+  }
+
+  private String[][] takeSegment() throws IOException {
+    try {
+      return segments.take().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading " + path);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException ioException) {
+        throw ioException;
+      } else if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Finds the segments (splitting only at line ends outside quoted values) and submits them for tokenizing.
+   */
+  private void split() {
+    try {
+      long size = channel.size();
+      long segmentStart = byteOrderMarkLength();
+      byte state = FIELD_START;
+      for (long windowStart = segmentStart; windowStart < size && !closed; windowStart += SCAN_WINDOW) {
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(SCAN_WINDOW, size - windowStart));
+        int length = window.limit();
+        for (int i = 0; i < length; i++) {
+          byte b = window.get(i);
+          state = nextState(state, b);
+          if (b == '\n' && state == FIELD_START && windowStart + i + 1 - segmentStart >= segmentSize) {
+            submit(segmentStart, windowStart + i + 1);
+            segmentStart = windowStart + i + 1;
+          }
+        }
+      }
+      if (segmentStart < size) {
+        submit(segmentStart, size);
+      }
+      segments.put(END);
+    } catch (InterruptedException e) {
+      // Closed
+    } catch (Exception e) {
+      if (!closed) {
+        segments.clear();
+        segments.offer(CompletableFuture.failedFuture(e));
+      }
+    }
+  }
+
+  private void submit(long start, long end) throws InterruptedException {
+    segments.put(pool.submit(() -> tokenize(start, end)));
+  }
+
+  private long byteOrderMarkLength() throws IOException {
+    if (channel.size() < 3) {
+      return 0;
+    }
+    MappedByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY, 0, 3);
+    return start.get(0) == (byte) 0xEF && start.get(1) == (byte) 0xBB && start.get(2) == (byte) 0xBF ? 3 : 0;
+  }
+
+  private static byte nextState(byte state, byte b) {
+    return switch (state) {
+      case QUOTED -> b == '"' ? QUOTE_IN_QUOTED : QUOTED;
+      case QUOTE_IN_QUOTED -> b == '"' ? QUOTED : separatorState(b);
+      case FIELD_START -> b == '"' ? QUOTED : separatorState(b);
+      default -> separatorState(b);
+    };
+  }
+
+  private static byte separatorState(byte b) {
+    return b == ',' || b == '\n' || b == '\r' ? FIELD_START : UNQUOTED;
+  }
+
+  /**
+   * Tokenizes the rows in a segment of the file, the segment always starts at the beginning of a row.
+   */
+  private String[][] tokenize(long start, long end) throws IOException {
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IOException("Row starting at byte " + start + " in " + path + " is too large");
+    }
+    byte[] data = new byte[(int) (end - start)];
+    channel.map(FileChannel.MapMode.READ_ONLY, start, data.length).get(0, data);
+
+    List<String[]> segmentRows = new ArrayList<>();
+    List<String> values = new ArrayList<>();
+    byte[] quoted = new byte[256];
+    int length = data.length;
+    int i = 0;
+    while (i < length) {
+      if (data[i] == '"') {
+        int quotedLength = 0;
+        i++;
+        while (true) {
+          if (i >= length) {
+            throw new IOException("Unterminated quoted value at end of " + path);
+          }
+          byte b = data[i++];
+          if (b == '"') {
+            if (i < length && data[i] == '"') {
+              i++;
+            } else {
+              break;
+            }
+          }
+          if (quotedLength == quoted.length) {
+            quoted = Arrays.copyOf(quoted, quotedLength * 2);
+          }
+          quoted[quotedLength++] = b;
+        }
+        // Anything between the closing quote and the separator is kept
+        int from = i;
+        i = endOfValue(data, i);
+        if (i > from) {
+          quoted = Arrays.copyOf(quoted, Math.max(quoted.length, quotedLength + i - from));
+          System.arraycopy(data, from, quoted, quotedLength, i - from);
+          quotedLength += i - from;
+        }
+        values.add(new String(quoted, 0, quotedLength, StandardCharsets.UTF_8));
+      } else {
+        int from = i;
+        i = endOfValue(data, i);
+        values.add(new String(data, from, i - from, StandardCharsets.UTF_8));
+      }
+
+      if (i >= length) {
+        segmentRows.add(values.toArray(String[]::new));
+        values.clear();
+        break;
+      }
+      byte separator = data[i++];
+      if (separator == ',') {
+        if (i >= length) {
+          values.add("");
+          segmentRows.add(values.toArray(String[]::new));
+          values.clear();
+        }
+        continue;
+      }
+      if (separator == '\r' && i < length && data[i] == '\n') {
+        i++;
+      }
+      segmentRows.add(values.toArray(String[]::new));
+      values.clear();
+    }
+    log.trace("Tokenized {} rows from {} bytes {}-{}", segmentRows.size(), path, start, end);
+    return segmentRows.toArray(String[][]::new);
+  }
+
+  private static int endOfValue(byte[] data, int i) {
+    while (i < data.length) {
+      byte b = data[i];
+      if (b == ',' || b == '\n' || b == '\r') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+}
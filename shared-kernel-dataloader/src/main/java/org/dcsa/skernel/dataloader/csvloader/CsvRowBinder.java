@@ -0,0 +1,100 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloader.Column;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts the values of the rows of a table. The column types and null values are resolved once per table,
+ * so the values of a row can be bound directly to a (reused) statement without intermediate objects.
+ */
+final class CsvRowBinder {
+  private final String[] names;
+  private final CsvColumnType[] types;
+  private final boolean emptyIsNull;
+  private final Set<String> nullValues;
+
+  CsvRowBinder(CsvDataloaderEntry entry, List<Column> columns) {
+    this.names = columns.stream().map(Column::name).toArray(String[]::new);
+    this.types = columns.stream().map(Column::type).toArray(CsvColumnType[]::new);
+    this.emptyIsNull = Boolean.TRUE.equals(entry.emptyIsNull());
+    this.nullValues = entry.otherNullValues() != null ? new HashSet<>(entry.otherNullValues()) : Set.of();
+  }
+
+  int size() {
+    return names.length;
+  }
+
+  List<String> names() {
+    return Arrays.asList(names);
+  }
+
+  String name(int column) {
+    return names[column];
+  }
+
+  CsvColumnType type(int column) {
+    return types[column];
+  }
+
+  /**
+   * Replaces the values that represent null ("emptyIsNull" and "otherNullValues") with null.
+   */
+  void normalizeNulls(String[] values) {
+    for (int i = 0; i < names.length; i++) {
+      String value = values[i];
+      if (value != null && ((emptyIsNull && value.isEmpty()) || nullValues.contains(value))) {
+        values[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Binds the values of a row as the parameters of the statement.
+   */
+  void bind(PreparedStatement statement, String[] values) throws SQLException {
+    for (int i = 0; i < types.length; i++) {
+      if (values[i] == null) {
+        types[i].bindNull(statement, i + 1);
+      } else {
+        try {
+          types[i].bind(statement, i + 1, values[i]);
+        } catch (RuntimeException e) {
+          throw invalidValue(i, values[i], e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Converts a single (non-null) value.
+   */
+  Object parse(int column, String value) {
+    try {
+      return types[column].parse(value);
+    } catch (RuntimeException e) {
+      throw invalidValue(column, value, e);
+    }
+  }
+
+  /**
+   * Returns the canonical text form of a single (non-null) value.
+   */
+  String format(int column, String value) {
+    try {
+      return types[column].format(value);
+    } catch (RuntimeException e) {
+      throw invalidValue(column, value, e);
+    }
+  }
+
+  private IllegalArgumentException invalidValue(int column, String value, RuntimeException cause) {
+    return new IllegalArgumentException("Invalid value '" + value + "' for " + names[column] + ": " + cause.getMessage(), cause);
+  }
+}
@@ -0,0 +1,78 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of a csv file into a single reused array instead of allocating a list per row.
+ */
+class CsvRowReader implements CsvRowSource {
+  private final CsvParser parser;
+  private String[] values = new String[16];
+  private int size = 0;
+  private boolean ready = false;
+  private boolean done = false;
+
+  CsvRowReader(CsvParser parser) {
+    this.parser = parser;
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    if (!ready && !done) {
+      ready = readRow();
+      done = !ready;
+    }
+    return ready;
+  }
+
+  @Override
+  public String[] next() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    ready = false;
+    return values;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public List<String> toList() {
+    return Arrays.asList(Arrays.copyOf(values, size));
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+
+  private boolean readRow() throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == null) {
+      return false;
+    }
+    if (token != JsonToken.START_ARRAY) {
+      throw new IOException("Unexpected " + token + " at start of row");
+    }
+    size = 0;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == null) {
+        throw new IOException("Unexpected end of input");
+      }
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = token == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+    return true;
+  }
+}
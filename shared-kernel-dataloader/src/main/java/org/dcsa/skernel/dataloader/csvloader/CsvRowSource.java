@@ -0,0 +1,28 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The rows of a csv file, see {@link CsvRowReader} and {@link CsvParallelRowReader}.
+ */
+interface CsvRowSource extends Closeable {
+  boolean hasNext() throws IOException;
+
+  /**
+   * Returns the values of the next row. The array may be reused when reading the following row and may be
+   * longer than the row, see {@link #size()}.
+   */
+  String[] next() throws IOException;
+
+  /**
+   * The number of values in the row returned by {@link #next()}.
+   */
+  int size();
+
+  /**
+   * A copy of the values in the row returned by {@link #next()}.
+   */
+  List<String> toList();
+}
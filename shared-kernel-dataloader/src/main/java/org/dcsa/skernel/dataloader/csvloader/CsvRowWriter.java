@@ -0,0 +1,27 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+/**
+ * Destination for the rows parsed from a csv file.
+ */
+interface CsvRowWriter {
+  /**
+   * Writes a single row.
+   *
+   * @param values the values of the row (with null values already normalized); the array is reused for the
+   *               next row so implementations must not keep a reference to it
+   * @param lineNo line number of the row in the csv file (used for error reporting)
+   */
+  void write(String[] values, int lineNo);
+
+  /**
+   * Writes any pending rows.
+   *
+   * @return the total number of rows written
+   */
+  int finish();
+
+  /**
+   * Called instead of {@link #finish()} when loading fails.
+   */
+  default void abort() {}
+}
@@ -0,0 +1,312 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import com.github.luben.zstd.ZstdInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.security.crypto.codec.Hex;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A csv file from a dataloader source.
+ *
+ * <p>The checksum is computed while streaming the file, so the contents are never held in memory. Files
+ * on the local file system are simply read twice (once for the checksum and once when loading), other
+ * files are spooled to a temporary file while computing the checksum, which is deleted on close.</p>
+ *
+ * <p>If the {@link Version} of the file from the last load is known, the file is only fetched if it has
+ * changed: local files are compared by size and modification time and HTTP sources are requested with
+ * "If-None-Match"/"If-Modified-Since". An unchanged file is neither transferred nor hashed.</p>
+ *
+ * <p>Files ending in ".gz" or ".zst" are decompressed while they are read, the checksum is computed over the
+ * compressed bytes. Reading ".zst" files requires com.github.luben:zstd-jni (an optional dependency, as it contains
+ * native code) on the classpath.</p>
+ */
+@Slf4j
+class CsvSourceFile implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Validators describing the version of a file as reported by its source.
+   */
+  record Version(String etag, String lastModified, Long contentLength) {
+    boolean isEmpty() {
+      return etag == null && lastModified == null && contentLength == null;
+    }
+  }
+
+  private final String url;
+  private final InputStreamSource contents;
+  private final Path path;
+  private final boolean temporary;
+  private final long size;
+  private final String checksum;
+  private final long checksumNanos;
+  private final Version version;
+
+  private CsvSourceFile(String url, InputStreamSource contents, Path path, boolean temporary, long size, String checksum,
+                        long checksumNanos, Version version) {
+    this.url = url;
+    this.contents = contents;
+    this.path = path;
+    this.temporary = temporary;
+    this.size = size;
+    this.checksum = checksum;
+    this.checksumNanos = checksumNanos;
+    this.version = version;
+  }
+
+  /**
+   * A file whose contents and checksum are provided by the caller (e.g. an entry in an archive).
+   */
+  static CsvSourceFile of(String url, InputStreamSource contents, long size, String checksum, long checksumNanos,
+                          Version version) {
+    return new CsvSourceFile(url, contents, null, false, size, checksum, checksumNanos, version);
+  }
+
+  static CsvSourceFile fetch(String url) throws IOException {
+    return fetch(url, null);
+  }
+
+  /**
+   * Fetches the file unless it is known to be unchanged since the given version.
+   *
+   * @param knownVersion the version of the file when it was last loaded (may be null)
+   */
+  static CsvSourceFile fetch(String url, Version knownVersion) throws IOException {
+    URL location = new URL(url);
+    long start = System.nanoTime();
+    Path localPath = localPath(location);
+    if (localPath != null) {
+      Version version = localVersion(localPath);
+      if (knownVersion != null && !knownVersion.isEmpty() && version.equals(knownVersion)) {
+        return unchanged(url, version);
+      }
+      String checksum;
+      try (InputStream in = Files.newInputStream(localPath)) {
+        checksum = checksum(in);
+      }
+      return new CsvSourceFile(url, () -> Files.newInputStream(localPath), localPath, false, version.contentLength(),
+        checksum, System.nanoTime() - start, version);
+    }
+
+    URLConnection connection = location.openConnection();
+    if (isNotModified(connection, knownVersion)) {
+      return unchanged(url, knownVersion);
+    }
+    Version version = version(connection);
+
+    MessageDigest digest = newDigest();
+    Path spool = spool(connection, digest);
+    log.trace("Spooled {} to {}", url, spool);
+    return new CsvSourceFile(url, () -> Files.newInputStream(spool), spool, true, Files.size(spool),
+      new String(Hex.encode(digest.digest())), System.nanoTime() - start, version);
+  }
+
+  /**
+   * Copies the contents of the connection to a temporary file (updating the digest if not null).
+   */
+  static Path spool(URLConnection connection, MessageDigest digest) throws IOException {
+    Path spool = Files.createTempFile("csvloader-", ".tmp");
+    try (InputStream in = digest != null ? new DigestInputStream(connection.getInputStream(), digest) : connection.getInputStream()) {
+      Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(spool);
+      throw e;
+    }
+    return spool;
+  }
+
+  String url() {
+    return url;
+  }
+
+  /**
+   * Whether the file is known to be unchanged since the last load. An unchanged file has no checksum and
+   * can not be read.
+   */
+  boolean isUnchanged() {
+    return contents == null;
+  }
+
+  /**
+   * SHA3-256 checksum of the (raw, possibly compressed) contents of the file as a hex string.
+   */
+  String checksum() {
+    return checksum;
+  }
+
+  Version version() {
+    return version;
+  }
+
+  /**
+   * Time spent reading the file to compute the checksum, for remote files this includes the transfer.
+   */
+  long checksumNanos() {
+    return checksumNanos;
+  }
+
+  /**
+   * The size of the (raw, possibly compressed) contents in bytes, -1 if unknown.
+   */
+  long size() {
+    return size;
+  }
+
+  /**
+   * Opens a new UTF-8 reader for the (decompressed) contents of the file. The caller must close the reader.
+   */
+  Reader openReader() throws IOException {
+    Objects.requireNonNull(contents, "Unchanged files can not be read");
+    return new BufferedReader(new InputStreamReader(decode(url, contents.getInputStream()), StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  /**
+   * The file on the local file system holding the (uncompressed) contents, or null if the contents are compressed
+   * or not stored in a file of their own (e.g. an entry in an archive).
+   */
+  Path uncompressedPath() {
+    return path != null && !isCompressed(url) ? path : null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (temporary) {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Wraps the stream in a decompressing stream if the name ends with ".gz" or ".zst".
+   */
+  static boolean isCompressed(String name) {
+    String lowerCaseName = name.toLowerCase(Locale.ROOT);
+    return lowerCaseName.endsWith(".gz") || lowerCaseName.endsWith(".zst");
+  }
+
+  static InputStream decode(String name, InputStream in) throws IOException {
+    String lowerCaseName = name.toLowerCase(Locale.ROOT);
+    try {
+      if (lowerCaseName.endsWith(".gz")) {
+        return new GZIPInputStream(in, BUFFER_SIZE);
+      } else if (lowerCaseName.endsWith(".zst")) {
+        return Zstd.decode(in);
+      }
+      return in;
+    } catch (NoClassDefFoundError e) {
+      in.close();
+      throw new IOException("Reading " + name + " requires com.github.luben:zstd-jni on the classpath", e);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Refers to the optional zstd-jni, so it is only loaded when a ".zst" file is read.
+   */
+  private static class Zstd {
+    static InputStream decode(InputStream in) throws IOException {
+      return new ZstdInputStream(in);
+    }
+  }
+
+  /**
+   * Sends the validators of the known version (if any) with an HTTP request and returns whether the server
+   * responded that the resource has not been modified, in which case the connection is closed.
+   */
+  static boolean isNotModified(URLConnection connection, Version knownVersion) throws IOException {
+    if (!(connection instanceof HttpURLConnection httpConnection) || knownVersion == null || knownVersion.isEmpty()) {
+      return false;
+    }
+    if (knownVersion.etag() != null) {
+      httpConnection.setRequestProperty("If-None-Match", knownVersion.etag());
+    }
+    if (knownVersion.lastModified() != null) {
+      httpConnection.setRequestProperty("If-Modified-Since", knownVersion.lastModified());
+    }
+    if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      httpConnection.disconnect();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * The validators of the response.
+   */
+  static Version version(URLConnection connection) {
+    long contentLength = connection.getContentLengthLong();
+    return new Version(
+      connection.getHeaderField("ETag"),
+      connection.getHeaderField("Last-Modified"),
+      contentLength >= 0 ? contentLength : null
+    );
+  }
+
+  /**
+   * The version of a local file: its modification time and size.
+   */
+  static Version localVersion(Path path) throws IOException {
+    return new Version(null, Files.getLastModifiedTime(path).toString(), Files.size(path));
+  }
+
+  /**
+   * Reads the stream to the end and returns the checksum of its contents as a hex string.
+   */
+  static String checksum(InputStream in) throws IOException {
+    MessageDigest digest = newDigest();
+    try (InputStream digestIn = new DigestInputStream(in, digest)) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (digestIn.read(buffer) != -1) {
+        // Reading is enough to update the digest
+      }
+    }
+    return new String(Hex.encode(digest.digest()));
+  }
+
+  static CsvSourceFile unchanged(String url, Version version) {
+    log.trace("Unchanged since last load {}", url);
+    return new CsvSourceFile(url, null, null, false, -1, null, 0, version);
+  }
+
+  static Path localPath(URL location) {
+    if (!"file".equals(location.getProtocol())) {
+      return null;
+    }
+    try {
+      Path path = Path.of(location.toURI());
+      return Files.isRegularFile(path) ? path : null;
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA3-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The location of the csvloader.yml and the csv files of a csv source.
+ *
+ * <p>The path of a source is normally a url of a directory, the files are then fetched individually as
+ * {@code path + "/" + file}. A "file:", "http:" or "https:" path ending in ".zip" or ".jar" (optionally followed
+ * by "!/" and a directory within the archive) refers to an archive containing the csvloader.yml and the csv files.
+ * The archive is fetched at most once per load (local archives are read in place) and its entries are streamed
+ * directly into the parser without being extracted. Other urls, e.g. a "jar:" url of a directory in the
+ * application jar, are directories opened by the JDK.</p>
+ *
+ * <p>The checksum of an archive entry is computed from its contents, as for plain files. The entries are versioned
+ * by the archive: by its modification time and size if it is local and by its validators (ETag, Last-Modified) if
+ * it is served over HTTP, so the entries of an archive that has not changed since they were loaded are not read.
+ * Remote archives with validators are kept in a temporary file and are only downloaded again if a conditional
+ * request shows they have changed.</p>
+ */
+@Slf4j
+abstract class CsvSourceLocation implements Closeable {
+  private static final String CONFIG_FILE = "csvloader.yml";
+  private static final String ARCHIVE_SEPARATOR = "!/";
+  private static final String[] ARCHIVE_SCHEMES = {"file:", "http:", "https:"};
+
+  private record CachedArchive(Path file, CsvSourceFile.Version version) {}
+
+  /**
+   * The remote archives fetched by url, so they are only fetched again if they have changed.
+   */
+  private static final Map<String, CachedArchive> REMOTE_ARCHIVES = new ConcurrentHashMap<>();
+
+  static CsvSourceLocation open(String path) throws IOException {
+    String archiveUrl = archiveUrl(path);
+    if (archiveUrl == null) {
+      return new Directory(path);
+    }
+    String directory = path.length() > archiveUrl.length() + ARCHIVE_SEPARATOR.length()
+      ? path.substring(archiveUrl.length() + ARCHIVE_SEPARATOR.length()).replaceAll("/+$", "")
+      : "";
+    String prefix = directory.isEmpty() ? "" : directory + "/";
+    URL location = new URL(archiveUrl);
+    Path localPath = CsvSourceFile.localPath(location);
+    if (localPath != null) {
+      CsvSourceFile.Version version = CsvSourceFile.localVersion(localPath);
+      return new Archive(path, new ZipFile(localPath.toFile()), prefix, version, null);
+    }
+
+    CachedArchive cached = REMOTE_ARCHIVES.get(archiveUrl);
+    if (cached != null && !Files.isRegularFile(cached.file())) {
+      cached = null;
+    }
+    URLConnection connection = location.openConnection();
+    if (cached != null && CsvSourceFile.isNotModified(connection, cached.version())) {
+      log.trace("Unchanged since last fetch {}", archiveUrl);
+      return new Archive(path, new ZipFile(cached.file().toFile()), prefix, cached.version(), null);
+    }
+    CsvSourceFile.Version version = CsvSourceFile.version(connection);
+    Path spool = CsvSourceFile.spool(connection, null);
+    log.trace("Spooled {} to {}", archiveUrl, spool);
+    ZipFile zipFile;
+    try {
+      zipFile = new ZipFile(spool.toFile());
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(spool);
+      throw e;
+    }
+    if (version.etag() == null && version.lastModified() == null) {
+      // Without validators the archive can not be requested conditionally and its entries have no version
+      return new Archive(path, zipFile, prefix, new CsvSourceFile.Version(null, null, null), spool);
+    }
+    spool.toFile().deleteOnExit();
+    CachedArchive previous = REMOTE_ARCHIVES.put(archiveUrl, new CachedArchive(spool, version));
+    if (previous != null) {
+      delete(previous.file());
+    }
+    return new Archive(path, zipFile, prefix, version, null);
+  }
+
+  /**
+   * Deletes a cached archive, which may still be open for a concurrent load of another directory in it.
+   */
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.debug("Unable to delete {} (deleted on exit): {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * The url of a file in this location, as recorded in the history.
+   */
+  abstract String url(String file);
+
+  abstract InputStream openConfig() throws IOException;
+
+  /**
+   * Fetches a file unless it is known to be unchanged since the given version, see
+   * {@link CsvSourceFile#fetch(String, CsvSourceFile.Version)}.
+   */
+  abstract CsvSourceFile fetch(String file, CsvSourceFile.Version knownVersion) throws IOException;
+
+  @Override
+  public void close() throws IOException {
+  }
+
+  /**
+   * Returns the url of the archive if the path refers to an archive, otherwise null. Only plain file and http(s)
+   * urls are read as archives, "jar:" urls (and others the JDK opens) are left to the JDK.
+   */
+  private static String archiveUrl(String path) {
+    String lowerCasePath = path.toLowerCase(Locale.ROOT);
+    if (Arrays.stream(ARCHIVE_SCHEMES).noneMatch(lowerCasePath::startsWith)) {
+      return null;
+    }
+    for (String extension : new String[] {".zip", ".jar"}) {
+      if (lowerCasePath.endsWith(extension)) {
+        return path;
+      }
+      int index = lowerCasePath.indexOf(extension + ARCHIVE_SEPARATOR);
+      if (index >= 0) {
+        return path.substring(0, index + extension.length());
+      }
+    }
+    return null;
+  }
+
+  private static class Directory extends CsvSourceLocation {
+    private final String path;
+
+    private Directory(String path) {
+      this.path = path;
+    }
+
+    @Override
+    String url(String file) {
+      return path + "/" + file;
+    }
+
+    @Override
+    InputStream openConfig() throws IOException {
+      return new URL(url(CONFIG_FILE)).openStream();
+    }
+
+    @Override
+    CsvSourceFile fetch(String file, CsvSourceFile.Version knownVersion) throws IOException {
+      return CsvSourceFile.fetch(url(file), knownVersion);
+    }
+  }
+
+  /**
+   * An archive, its entries have the version of the archive.
+   */
+  private static class Archive extends CsvSourceLocation {
+    private final String path;
+    private final ZipFile zipFile;
+    private final String prefix;
+    private final CsvSourceFile.Version version;
+    private final Path temporaryFile;
+
+    private Archive(String path, ZipFile zipFile, String prefix, CsvSourceFile.Version version, Path temporaryFile) {
+      this.path = path;
+      this.zipFile = zipFile;
+      this.prefix = prefix;
+      this.version = version;
+      this.temporaryFile = temporaryFile;
+    }
+
+    @Override
+    String url(String file) {
+      return path + (path.contains(ARCHIVE_SEPARATOR) ? "/" : ARCHIVE_SEPARATOR) + file;
+    }
+
+    @Override
+    InputStream openConfig() throws IOException {
+      return zipFile.getInputStream(entry(CONFIG_FILE));
+    }
+
+    @Override
+    CsvSourceFile fetch(String file, CsvSourceFile.Version knownVersion) throws IOException {
+      ZipEntry entry = entry(file);
+      if (!version.isEmpty() && version.equals(knownVersion)) {
+        return CsvSourceFile.unchanged(url(file), version);
+      }
+      long start = System.nanoTime();
+      String checksum;
+      try (InputStream in = zipFile.getInputStream(entry)) {
+        checksum = CsvSourceFile.checksum(in);
+      }
+      return CsvSourceFile.of(url(file), () -> zipFile.getInputStream(entry), entry.getSize(), checksum,
+        System.nanoTime() - start, version);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        zipFile.close();
+      } finally {
+        if (temporaryFile != null) {
+          Files.deleteIfExists(temporaryFile);
+        }
+      }
+    }
+
+    private ZipEntry entry(String file) throws FileNotFoundException {
+      ZipEntry entry = zipFile.getEntry(prefix + file);
+      if (entry == null) {
+        throw new FileNotFoundException(url(file));
+      }
+      return entry;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Refreshes a table through a temporary staging table (used for "refresh: STAGING").
+ *
+ * <p>The rows are written to the staging table (with COPY when possible), which is then indexed on the primary
+ * key and analyzed. Only then is the table itself touched: a single "insert ... on conflict do update" applies
+ * the rows that were added or changed, and if "deleteRemoved" is set a single "delete" removes the rows that
+ * are no longer in the file. Unchanged rows are not updated, so the row locks on the table are few and only taken
+ * by the last statements of the transaction instead of while the whole file is read (they are held until it
+ * commits).</p>
+ *
+ * <p>Must be used within a transaction. The staging table is a temporary table ("on commit drop"), so it is only
+ * visible to the connection of the load, cannot collide with concurrent loads of the same table or with a table
+ * of the application and is dropped at the end of the transaction (also if it is rolled back).</p>
+ */
+@Slf4j
+class CsvStagingWriter implements CsvRowWriter {
+  static final String STAGING_SUFFIX = "_staging";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CsvDataloaderEntry entry;
+  private final CsvRowBinder binder;
+  private final String stagingTable;
+  private final CsvRowWriter delegate;
+
+  /**
+   * @param batchSizes records the size of each batch if the staging table is populated with batched inserts
+   *                   (may be null)
+   */
+  CsvStagingWriter(JdbcTemplate jdbcTemplate, CsvDataloaderEntry entry, CsvRowBinder binder, DistributionSummary batchSizes) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.entry = entry;
+    this.binder = binder;
+    this.stagingTable = stagingTable(entry.table());
+    String columns = String.join(", ", binder.names());
+    try {
+      jdbcTemplate.execute("drop table if exists " + stagingTable);
+      jdbcTemplate.execute("create temporary table " + stagingTable + " on commit drop as select " + columns + " from "
+        + entry.table() + " with no data");
+    } catch (DataAccessException e) {
+      throw new CsvDataloaderException("Unable to create staging table for " + entry.table() + " - " + e.getMessage(), e);
+    }
+    CsvRowWriter copyWriter = jdbcTemplate.execute((ConnectionCallback<CsvRowWriter>) connection ->
+      CsvCopyWriter.start(connection, stagingTable, entry, binder));
+    this.delegate = copyWriter != null ? copyWriter : new CsvBatchInsertWriter(jdbcTemplate, entry, binder,
+      "insert into " + stagingTable + " (" + columns + ") values (" +
+        IntStream.range(0, binder.size()).mapToObj(i -> "?").collect(Collectors.joining(", ")) + ")", batchSizes);
+  }
+
+  @Override
+  public void write(String[] values, int lineNo) {
+    delegate.write(values, lineNo);
+  }
+
+  @Override
+  public int finish() {
+    int rows = delegate.finish();
+    List<String> primaryKey = primaryKey(entry, binder.names());
+    try {
+      jdbcTemplate.execute("create unique index on " + stagingTable + " (" + String.join(", ", primaryKey) + ")");
+    } catch (DuplicateKeyException e) {
+      throw new CsvDataloaderException("Duplicate primary key in " + entry.file() + " - " + e.getMessage(), e);
+    }
+    jdbcTemplate.execute("analyze " + stagingTable);
+
+    int changed = jdbcTemplate.update(mergeSql(entry.table(), stagingTable, binder.names(), primaryKey));
+    int deleted = entry.deleteRemoved() ? jdbcTemplate.update(deleteSql(entry.table(), stagingTable, primaryKey)) : 0;
+    jdbcTemplate.execute("drop table " + stagingTable);
+    log.debug("Refreshed {} from {} rows: {} added or changed, {} deleted", entry.table(), rows, changed, deleted);
+    return rows;
+  }
+
+  @Override
+  public void abort() {
+    delegate.abort();
+  }
+
+  /**
+   * The staging table of a table, in the session's temporary schema (named after the table without its schema).
+   */
+  static String stagingTable(String table) {
+    return "pg_temp." + table.substring(table.lastIndexOf('.') + 1) + STAGING_SUFFIX;
+  }
+
+  static List<String> primaryKey(CsvDataloaderEntry entry, List<String> names) {
+    return entry.primaryKey() != null
+      ? Arrays.stream(entry.primaryKey().split(",")).map(String::trim).toList()
+      : List.of(names.get(0));
+  }
+
+  /**
+   * Inserts the new rows and updates the changed rows (rows that are identical to the staged row are not
+   * touched, so they are neither locked nor rewritten).
+   */
+  static String mergeSql(String table, String stagingTable, List<String> names, List<String> primaryKey) {
+    String columns = String.join(", ", names);
+    String sql = "insert into " + table + " as target (" + columns + ") select " + columns + " from " + stagingTable;
+    List<String> updated = names.stream().filter(name -> !primaryKey.contains(name)).toList();
+    if (updated.isEmpty()) {
+      return sql + " on conflict do nothing";
+    }
+    return sql + " on conflict (" + String.join(", ", primaryKey) + ") do update set "
+      + updated.stream().map(n -> n + " = excluded." + n).collect(Collectors.joining(", "))
+      + " where (" + updated.stream().map(n -> "target." + n).collect(Collectors.joining(", "))
+      + ") is distinct from (" + updated.stream().map(n -> "excluded." + n).collect(Collectors.joining(", ")) + ")";
+  }
+
+  /**
+   * Deletes the rows whose primary key is not in the staging table.
+   */
+  static String deleteSql(String table, String stagingTable, List<String> primaryKey) {
+    return "delete from " + table + " target where not exists (select 1 from " + stagingTable + " staging where "
+      + primaryKey.stream().map(n -> "staging." + n + " = target." + n).collect(Collectors.joining(" and ")) + ")";
+  }
+}
@@ -3,30 +3,158 @@ package org.dcsa.skernel.dataloader.flywayloader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.dcsa.skernel.dataloader.DataloaderDryRun;
+import org.dcsa.skernel.dataloader.DataloaderMetrics;
 import org.dcsa.skernel.dataloader.TypedDataloader;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.flywaydb.core.api.output.ValidateResult;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
+/**
+ * Applies the migrations of a flyway source.
+ *
+ * <p>The path of a source is a "classpath:" or "filesystem:" location, a "file:" url of a directory or a "file:"
+ * url of a local jar or zip archive followed by "!/" and a directory within the archive. Archives are scanned
+ * through a class loader of their own that does not delegate to the application class loader, so only the
+ * migrations in the archive are found (and Java migrations in an archive are not supported). The configured
+ * {@link Flyway} instance is kept per history table and path, so the migrations are only scanned once. Before
+ * migrating, the resolved migrations (and their checksums) are validated against the history table, which is
+ * read-only and does not lock it, and migrate is skipped if nothing is pending.</p>
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class FlywayDataloader implements TypedDataloader {
+public class FlywayDataloader implements TypedDataloader, DisposableBean {
+  private static final String ARCHIVE_SEPARATOR = "!/";
+
+  private record FlywayKey(String historyTable, String path) {}
+
   private final DataSource dataSource;
+  private final DataloaderMetrics metrics;
+  private final Map<FlywayKey, Flyway> flyways = new ConcurrentHashMap<>();
+  private final Map<Path, URLClassLoader> archiveClassLoaders = new ConcurrentHashMap<>();
 
   @Override
   public void loadData(DataloaderSource source) {
-    if (!source.path().startsWith("classpath:")) {
-      throw new FlywayDataloaderException("FlywayDataloader only supports classpath paths: " + source.path());
+    long start = System.nanoTime();
+    Flyway flyway = flyway(source);
+    ValidateResult validateResult = flyway.validateWithResult();
+    if (validateResult.validationSuccessful) {
+      log.debug("No pending migrations in {} ({})", source.path(), source.historyTable());
+      metrics.flyway(source.path(), "skipped", System.nanoTime() - start, 0);
+      return;
     }
-    Flyway.configure()
+    MigrateResult migrateResult = flyway.migrate();
+    metrics.flyway(source.path(), "migrated", System.nanoTime() - start, migrateResult.migrationsExecuted);
+  }
+
+  /**
+   * Reports the migrations that would be applied.
+   */
+  @Override
+  public void dryRun(DataloaderSource source, DataloaderDryRun dryRun) {
+    MigrationInfo[] pending = flyway(source).info().pending();
+    dryRun.note(source.type() + ":" + source.path() + " - " + pending.length + " pending migrations"
+      + Arrays.stream(pending).map(MigrationInfo::getScript).collect(Collectors.joining(", ", pending.length > 0 ? ": " : "", "")));
+  }
+
+  @Override
+  public void destroy() {
+    flyways.clear();
+    archiveClassLoaders.values().forEach(classLoader -> {
+      try {
+        classLoader.close();
+      } catch (IOException e) {
+        log.debug("Unable to close class loader for {}: {}", Arrays.toString(classLoader.getURLs()), e.getMessage());
+      }
+    });
+    archiveClassLoaders.clear();
+  }
+
+  private Flyway flyway(DataloaderSource source) {
+    return flyways.computeIfAbsent(new FlywayKey(source.historyTable(), source.path()), key -> configure(key.path())
       .dataSource(dataSource)
-      .table(source.historyTable())
+      .table(key.historyTable())
       .baselineOnMigrate(true)
       .baselineVersion("0")
-      .locations(source.path())
-      .load()
-      .migrate();
+      .load());
+  }
+
+  private FluentConfiguration configure(String path) {
+    if (path.startsWith("classpath:") || path.startsWith("filesystem:")) {
+      return Flyway.configure().locations(path);
+    }
+    if (!path.startsWith("file:")) {
+      throw new FlywayDataloaderException("FlywayDataloader only supports classpath, filesystem and file paths: " + path);
+    }
+    String archiveUrl = archiveUrl(path);
+    if (archiveUrl != null) {
+      Path archive = localPath(archiveUrl);
+      String directory = path.length() > archiveUrl.length() + ARCHIVE_SEPARATOR.length()
+        ? path.substring(archiveUrl.length() + ARCHIVE_SEPARATOR.length()).replaceAll("/+$", "")
+        : "";
+      if (directory.isEmpty()) {
+        // The root of a classpath location would be the root of every entry of the class loader
+        throw new FlywayDataloaderException("Flyway archive source must name a directory within the archive: " + path);
+      }
+      // Flyway scans archives through a class loader, so each archive gets a class loader of its own. Its parent
+      // is the platform class loader, so the application's own migrations are not found in the archive location.
+      URLClassLoader classLoader = archiveClassLoaders.computeIfAbsent(archive, p -> {
+        try {
+          return new URLClassLoader(new URL[] {p.toUri().toURL()}, ClassLoader.getPlatformClassLoader());
+        } catch (MalformedURLException e) {
+          throw new FlywayDataloaderException("Invalid archive path: " + path);
+        }
+      });
+      return Flyway.configure(classLoader).locations("classpath:" + directory);
+    }
+    return Flyway.configure().locations("filesystem:" + localPath(path));
+  }
+
+  /**
+   * Returns the url of the archive if the path refers to an archive, otherwise null.
+   */
+  private static String archiveUrl(String path) {
+    String lowerCasePath = path.toLowerCase(Locale.ROOT);
+    for (String extension : new String[] {".zip", ".jar"}) {
+      if (lowerCasePath.endsWith(extension)) {
+        return path;
+      }
+      int index = lowerCasePath.indexOf(extension + ARCHIVE_SEPARATOR);
+      if (index >= 0) {
+        return path.substring(0, index + extension.length());
+      }
+    }
+    return null;
+  }
+
+  private static Path localPath(String url) {
+    try {
+      Path path = Path.of(new URL(url).toURI());
+      if (!Files.exists(path)) {
+        throw new FlywayDataloaderException("Flyway source does not exist: " + url);
+      }
+      return path;
+    } catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {
+      throw new FlywayDataloaderException("Invalid flyway source path: " + url);
+    }
   }
 }
@@ -0,0 +1,33 @@
+package org.dcsa.skernel.dataloader;
+
+import org.dcsa.skernel.dataloader.DataloaderProgress.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DataloaderAutoloadTest {
+
+  @Test
+  public void testGroupStatus_Pending() {
+    assertEquals(Status.PENDING, DataloaderAutoload.groupStatus(List.of(Status.PENDING, Status.PENDING)));
+  }
+
+  @Test
+  public void testGroupStatus_RunningUntilAllSourcesLoaded() {
+    assertEquals(Status.RUNNING, DataloaderAutoload.groupStatus(List.of(Status.COMPLETED, Status.PENDING)));
+    assertEquals(Status.RUNNING, DataloaderAutoload.groupStatus(List.of(Status.SKIPPED, Status.RUNNING)));
+  }
+
+  @Test
+  public void testGroupStatus_Completed() {
+    assertEquals(Status.COMPLETED, DataloaderAutoload.groupStatus(List.of(Status.COMPLETED, Status.SKIPPED)));
+    assertEquals(Status.COMPLETED, DataloaderAutoload.groupStatus(List.of()));
+  }
+
+  @Test
+  public void testGroupStatus_FailedIfAnySourceFailed() {
+    assertEquals(Status.FAILED, DataloaderAutoload.groupStatus(List.of(Status.COMPLETED, Status.FAILED, Status.PENDING)));
+  }
+}
@@ -0,0 +1,53 @@
+package org.dcsa.skernel.dataloader;
+
+import org.dcsa.skernel.dataloader.DataloaderAutoload.GroupReport;
+import org.dcsa.skernel.dataloader.DataloaderAutoload.Phase;
+import org.dcsa.skernel.dataloader.DataloaderProgress.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DataloaderHealthIndicatorTest {
+
+  @Test
+  public void testHealth_OutOfServiceWhileCriticalGroupsLoad() {
+    Health health = DataloaderHealthIndicator.health(List.of(
+      group("reference", Phase.CRITICAL, Status.RUNNING),
+      group("samples", Phase.BACKGROUND, Status.PENDING)));
+    assertEquals(org.springframework.boot.actuate.health.Status.OUT_OF_SERVICE, health.getStatus());
+    assertEquals(List.of("reference", "samples"), health.getDetails().get("pending"));
+  }
+
+  @Test
+  public void testHealth_UpWhileBackgroundGroupsLoad() {
+    Health health = DataloaderHealthIndicator.health(List.of(
+      group("reference", Phase.CRITICAL, Status.COMPLETED),
+      group("samples", Phase.BACKGROUND, Status.RUNNING)));
+    assertEquals(org.springframework.boot.actuate.health.Status.UP, health.getStatus());
+    assertEquals(List.of("samples"), health.getDetails().get("pending"));
+  }
+
+  @Test
+  public void testHealth_DownIfCriticalGroupFailed() {
+    Health health = DataloaderHealthIndicator.health(List.of(
+      group("reference", Phase.CRITICAL, Status.FAILED)));
+    assertEquals(org.springframework.boot.actuate.health.Status.DOWN, health.getStatus());
+    assertEquals(List.of("reference"), health.getDetails().get("failed"));
+  }
+
+  @Test
+  public void testHealth_UpIfBackgroundGroupFailed() {
+    Health health = DataloaderHealthIndicator.health(List.of(
+      group("reference", Phase.CRITICAL, Status.COMPLETED),
+      group("samples", Phase.BACKGROUND, Status.FAILED)));
+    assertEquals(org.springframework.boot.actuate.health.Status.UP, health.getStatus());
+    assertEquals(List.of("samples"), health.getDetails().get("failed"));
+  }
+
+  private static GroupReport group(String name, Phase phase, Status status) {
+    return new GroupReport(name, phase, status, 0, List.of());
+  }
+}
@@ -0,0 +1,164 @@
+package org.dcsa.skernel.dataloader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderCsvDefaults;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderDefaults;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.dcsa.skernel.dataloader.DataloaderConfig.OnChecksumError;
+import org.dcsa.skernel.dataloader.DataloaderProgress.Status;
+import org.dcsa.skernel.dataloader.csvloader.CsvColumnType;
+import org.dcsa.skernel.dataloader.csvloader.CsvColumnTypes;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloader;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderHistory;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderManifest;
+import org.dcsa.skernel.dataloader.flywayloader.FlywayDataloader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataloaderJobsTest {
+  private final DriverManagerDataSource dataSource =
+    new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+  private final TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  private final DataloaderMetrics metrics = new DataloaderMetrics(
+    new StaticListableBeanFactory(Map.of("meterRegistry", new SimpleMeterRegistry())).getBeanProvider(MeterRegistry.class));
+  private final DataloaderScheduler scheduler = new DataloaderScheduler();
+  private final CsvColumnTypes columnTypes =
+    new CsvColumnTypes(jdbcTemplate, new StaticListableBeanFactory().getBeanProvider(CsvColumnTypes.Customizer.class));
+  private final FlywayDataloader flywayDataloader = new FlywayDataloader(dataSource, metrics);
+  // Rows with a "gated" column are not loaded before the gate is opened, so the test controls when a job finishes
+  private final CountDownLatch gate = new CountDownLatch(1);
+  private DataloaderJobs jobs;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    jdbcTemplate.execute("create table location (id integer primary key, name varchar(100) not null)");
+    columnTypes.register(new CsvColumnType() {
+      @Override
+      public int sqlType() {
+        return Types.INTEGER;
+      }
+
+      @Override
+      public Object parse(String value) {
+        try {
+          gate.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return Integer.valueOf(value);
+      }
+    }, "gated");
+    Files.writeString(tempDir.resolve("csvloader.yml"), """
+      defaults:
+        csvheader: true
+      tables:
+        - table: location
+          file: location.csv
+      """);
+
+    DataloaderConfig config = new DataloaderConfig();
+    config.setDefaults(new DataloaderDefaults(new DataloaderCsvDefaults(OnChecksumError.REFRESH)));
+    config.setSources(List.of(DataloaderSource.builder()
+      .path("file:" + tempDir.toAbsolutePath())
+      .type("csv")
+      .groups(Set.of("test"))
+      .build()));
+    CsvDataloader csvDataloader = new CsvDataloader(jdbcTemplate, transactionTemplate,
+      new CsvDataloaderHistory(jdbcTemplate, transactionTemplate, metrics), new CsvDataloaderManifest(jdbcTemplate),
+      columnTypes, scheduler, new DataloaderAppConfig(), metrics);
+    jobs = new DataloaderJobs(new Dataloader(new DataloaderAppConfig(), config, scheduler, csvDataloader, flywayDataloader,
+      new StaticListableBeanFactory().getBeanProvider(DataloaderAutoload.class)));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    gate.countDown();
+    jobs.destroy();
+    scheduler.destroy();
+    flywayDataloader.destroy();
+    jdbcTemplate.execute("shutdown");
+  }
+
+  @Test
+  public void testSubmit_LoadsInBackground() throws IOException, InterruptedException {
+    Files.writeString(tempDir.resolve("location.csv"), """
+      id:gated,name
+      1,Copenhagen
+      2,Rotterdam
+      """);
+
+    DataloaderJob job = jobs.submit(Set.of("test"));
+    // The job is still active, so the same groups are not loaded twice
+    assertSame(job, jobs.submit(Set.of("test")));
+    assertTrue(job.isActive());
+    gate.countDown();
+    awaitFinished(job);
+
+    DataloaderProgress.Report progress = job.report().progress();
+    assertEquals(Status.COMPLETED, progress.status());
+    assertEquals(2, progress.rows());
+    assertEquals(2, jdbcTemplate.queryForObject("select count(*) from location", Integer.class));
+    assertSame(job, jobs.find(job.id()).orElseThrow());
+    assertEquals(List.of(job), jobs.findAll());
+  }
+
+  @Test
+  public void testSubmit_FailedJob() throws IOException, InterruptedException {
+    Files.writeString(tempDir.resolve("location.csv"), """
+      id:gated,name
+      1,Copenhagen
+      x,Rotterdam
+      """);
+    gate.countDown();
+
+    DataloaderJob job = jobs.submit(Set.of("test"));
+    awaitFinished(job);
+
+    DataloaderProgress.Report progress = job.report().progress();
+    assertEquals(Status.FAILED, progress.status());
+    assertNotNull(progress.error());
+    assertEquals(0, jdbcTemplate.queryForObject("select count(*) from location", Integer.class));
+    // A finished job does not prevent loading the groups again
+    DataloaderJob retry = jobs.submit(Set.of("test"));
+    assertNotEquals(job.id(), retry.id());
+    awaitFinished(retry);
+  }
+
+  private static void awaitFinished(DataloaderJob job) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (job.isActive() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertFalse(job.isActive(), "Job did not finish");
+  }
+}
@@ -0,0 +1,47 @@
+package org.dcsa.skernel.dataloader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DataloaderMetricsTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final DataloaderMetrics metrics = new DataloaderMetrics(
+    new StaticListableBeanFactory(Map.of("meterRegistry", registry)).getBeanProvider(MeterRegistry.class));
+
+  @Test
+  public void testCsvTableLoaded_RowsByOutcome() {
+    metrics.csvTableLoaded("file:/data", "facility", "upsert", 1_000_000, 5_000_000, 10, 10);
+    metrics.csvTableLoaded("file:/data", "facility", "incremental", 1_000_000, 5_000_000, 10, 3);
+
+    assertEquals(10, rows("upsert", "upserted"));
+    assertEquals(0, rows("upsert", "skipped"));
+    assertEquals(3, rows("incremental", "upserted"));
+    assertEquals(7, rows("incremental", "skipped"));
+    assertEquals(5, registry.get("dataloader.csv.transaction").tag("strategy", "incremental").timer().totalTime(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testCsvTableLoaded_CopyCountsAsInserted() {
+    metrics.csvTableLoaded("file:/data", "un_location", "copy", 0, 0, 5, 5);
+    assertEquals(5, registry.get("dataloader.csv.rows").tag("outcome", "inserted").counter().count());
+  }
+
+  @Test
+  public void testCsvBatchSize() {
+    metrics.csvBatchSize("file:/data", "facility", "insert").record(1000);
+    metrics.csvBatchSize("file:/data", "facility", "insert").record(200);
+    assertEquals(2, registry.get("dataloader.csv.batch.size").summary().count());
+    assertEquals(1200, registry.get("dataloader.csv.batch.size").summary().totalAmount());
+  }
+
+  private double rows(String strategy, String outcome) {
+    return registry.get("dataloader.csv.rows").tag("strategy", strategy).tag("outcome", outcome).counter().count();
+  }
+}
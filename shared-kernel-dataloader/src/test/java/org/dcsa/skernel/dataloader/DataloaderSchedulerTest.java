@@ -0,0 +1,142 @@
+package org.dcsa.skernel.dataloader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataloaderSchedulerTest {
+  private final DataloaderScheduler scheduler = new DataloaderScheduler();
+
+  @AfterEach
+  public void shutdown() {
+    scheduler.destroy();
+  }
+
+  @Test
+  public void testSequential_DependencyOrderThenGivenOrder() {
+    Map<String, Collection<String>> dependencies = Map.of("a", List.of("c"), "d", List.of("b"));
+    List<String> order = new ArrayList<>();
+
+    scheduler.run(List.of("a", "b", "c", "d"), dependencies::get, order::add, 1);
+
+    assertEquals(List.of("b", "c", "a", "d"), order);
+  }
+
+  @Test
+  public void testParallel_DependenciesCompleteBeforeDependents() {
+    Map<String, Collection<String>> dependencies = Map.of(
+      "c", List.of("a", "b"),
+      "d", List.of("c"),
+      "e", List.of("a"));
+    Set<String> completed = ConcurrentHashMap.newKeySet();
+    List<String> violations = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    scheduler.run(List.of("a", "b", "c", "d", "e"), dependencies::get, node -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      dependencies.getOrDefault(node, List.of()).stream()
+        .filter(dependency -> !completed.contains(dependency))
+        .forEach(dependency -> violations.add(node + " started before " + dependency));
+      sleep(20);
+      completed.add(node);
+      running.decrementAndGet();
+    }, 2);
+
+    assertEquals(Set.of("a", "b", "c", "d", "e"), completed);
+    assertEquals(List.of(), violations);
+    assertTrue(maxRunning.get() <= 2, "at most 2 tasks run concurrently");
+  }
+
+  @Test
+  public void testParallel_IndependentTasksRunConcurrently() throws InterruptedException {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    List<Boolean> overlapped = Collections.synchronizedList(new ArrayList<>());
+
+    scheduler.run(List.of("a", "b"), node -> List.of(), node -> {
+      bothStarted.countDown();
+      try {
+        overlapped.add(bothStarted.await(5, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, 2);
+
+    assertEquals(List.of(true, true), overlapped);
+  }
+
+  @Test
+  public void testCyclicDependencies() {
+    Map<String, Collection<String>> dependencies = Map.of("a", List.of("c"), "b", List.of("a"), "c", List.of("b"));
+    List<String> order = new ArrayList<>();
+
+    for (int parallelism : new int[] {1, 4}) {
+      DataloaderException exception = assertThrows(DataloaderException.class,
+        () -> scheduler.run(List.of("a", "b", "c", "d"), dependencies::get, order::add, parallelism));
+      assertTrue(exception.getMessage().startsWith("Cyclic dependencies"), exception.getMessage());
+    }
+    assertEquals(List.of(), order);
+  }
+
+  @Test
+  public void testSequential_FailureStopsLaterTasks() {
+    RuntimeException failure = new IllegalStateException("b failed");
+    List<String> order = new ArrayList<>();
+
+    RuntimeException thrown = assertThrows(RuntimeException.class,
+      () -> scheduler.run(List.of("a", "b", "c"), node -> List.of(), node -> {
+        order.add(node);
+        if (node.equals("b")) {
+          throw failure;
+        }
+      }, 1));
+
+    assertSame(failure, thrown);
+    assertEquals(List.of("a", "b"), order);
+  }
+
+  @Test
+  public void testParallel_FailureIsRethrownAfterRunningTasksComplete() {
+    Map<String, Collection<String>> dependencies = Map.of("c", List.of("b"));
+    RuntimeException failure = new IllegalStateException("b failed");
+    Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    RuntimeException thrown = assertThrows(RuntimeException.class,
+      () -> scheduler.run(List.of("a", "b", "c"), dependencies::get, node -> {
+        if (node.equals("b")) {
+          throw failure;
+        }
+        // a is still running when b fails
+        sleep(100);
+        completed.add(node);
+      }, 2));
+
+    assertSame(failure, thrown);
+    assertTrue(completed.contains("a"), "the running task completes");
+    assertFalse(completed.contains("c"), "the dependent of the failed task is not started");
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
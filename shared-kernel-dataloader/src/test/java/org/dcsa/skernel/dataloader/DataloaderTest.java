@@ -0,0 +1,60 @@
+package org.dcsa.skernel.dataloader;
+
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DataloaderTest {
+  @Test
+  public void testDependencies_WithoutDependsOnKeepsConfigOrder() {
+    DataloaderSource reference = source("reference", null);
+    DataloaderSource sample = source("sample", null);
+    DataloaderSource test = source("test", Set.of("reference"));
+
+    Map<DataloaderSource, List<DataloaderSource>> dependencies = Dataloader.dependencies(List.of(reference, sample, test));
+
+    assertEquals(List.of(), dependencies.get(reference));
+    assertEquals(List.of(reference), dependencies.get(sample));
+    assertEquals(List.of(reference), dependencies.get(test));
+  }
+
+  @Test
+  public void testDependencies_EmptyDependsOnIsIndependent() {
+    DataloaderSource reference = source("reference", null);
+    DataloaderSource independent = source("independent", Set.of());
+
+    Map<DataloaderSource, List<DataloaderSource>> dependencies = Dataloader.dependencies(List.of(reference, independent));
+
+    assertEquals(List.of(), dependencies.get(independent));
+  }
+
+  @Test
+  public void testDependencies_EarlierSourceDependingOnLaterSource() {
+    // "test" is listed first but depends on "reference", which must not wait for it (nor for "sample", which waits for "test")
+    DataloaderSource test = source("test", Set.of("reference"));
+    DataloaderSource sample = source("sample", null);
+    DataloaderSource reference = source("reference", null);
+    DataloaderSource other = source("other", null);
+
+    Map<DataloaderSource, List<DataloaderSource>> dependencies = Dataloader.dependencies(List.of(test, sample, reference, other));
+
+    assertEquals(List.of(reference), dependencies.get(test));
+    assertEquals(List.of(test), dependencies.get(sample));
+    assertEquals(List.of(), dependencies.get(reference));
+    assertEquals(List.of(test, sample, reference), dependencies.get(other));
+  }
+
+  private static DataloaderSource source(String group, Set<String> dependsOn) {
+    return DataloaderSource.builder()
+      .path("classpath:" + group)
+      .type("csv")
+      .groups(Set.of(group))
+      .dependsOn(dependsOn)
+      .build();
+  }
+}
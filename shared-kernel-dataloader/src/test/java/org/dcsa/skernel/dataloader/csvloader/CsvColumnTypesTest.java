@@ -0,0 +1,146 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloader.Column;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Binds values to H2 running in PostgreSQL mode.
+ */
+public class CsvColumnTypesTest {
+  private SingleConnectionDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  public void setUp() {
+    dataSource = new SingleConnectionDataSource("jdbc:h2:mem:csvcolumntypes;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE", true);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("""
+      create table typed (
+        id uuid primary key,
+        code char(5),
+        valid_from date,
+        updated timestamp with time zone,
+        amount numeric(10, 2),
+        note varchar(100)
+      )
+      """);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    jdbcTemplate.execute("drop table typed");
+    dataSource.destroy();
+  }
+
+  @Test
+  public void testBind_NativeTypes() throws SQLException {
+    CsvColumnTypes columnTypes = columnTypes();
+    CsvRowBinder binder = new CsvRowBinder(entry(), List.of(
+      new Column("id", columnTypes.resolve("uuid")),
+      new Column("code", columnTypes.resolve("bpchar")),
+      new Column("valid_from", columnTypes.resolve("date")),
+      new Column("updated", columnTypes.resolve("timestamptz")),
+      new Column("amount", columnTypes.resolve("numeric")),
+      new Column("note", columnTypes.resolve("string"))
+    ));
+    UUID id = UUID.randomUUID();
+    String[] values = {id.toString(), "DKCPH", "2021-01-31", "2021-01-31 12:00:00+01", "12.50", ""};
+    binder.normalizeNulls(values);
+
+    Connection connection = dataSource.getConnection();
+    try (PreparedStatement statement = connection.prepareStatement(
+      "insert into typed (id, code, valid_from, updated, amount, note) values (?, ?, ?, ?, ?, ?)")) {
+      binder.bind(statement, values);
+      assertEquals(1, statement.executeUpdate());
+    }
+
+    Map<String, Object> row = jdbcTemplate.queryForMap("select * from typed");
+    assertEquals(id, row.get("id"));
+    assertEquals("DKCPH", row.get("code"));
+    assertEquals(LocalDate.of(2021, 1, 31), jdbcTemplate.queryForObject("select valid_from from typed", LocalDate.class));
+    assertEquals(OffsetDateTime.of(2021, 1, 31, 11, 0, 0, 0, ZoneOffset.UTC).toInstant(),
+      jdbcTemplate.queryForObject("select updated from typed", OffsetDateTime.class).toInstant());
+    assertEquals(0, new BigDecimal("12.5").compareTo((BigDecimal) row.get("amount")));
+    assertNull(row.get("note"));
+  }
+
+  @Test
+  public void testBind_InvalidValue() {
+    CsvColumnTypes columnTypes = columnTypes();
+    CsvRowBinder binder = new CsvRowBinder(entry(), List.of(new Column("id", columnTypes.resolve("uuid"))));
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> binder.format(0, "not-a-uuid"));
+    assertTrue(e.getMessage().contains("id"), e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> columnTypes.resolve("jsonb").parse("{\"a\":"));
+    assertEquals("{\"a\": 1}", columnTypes.resolve("jsonb").format("{\"a\": 1}"));
+  }
+
+  @Test
+  public void testResolve_CaseInsensitiveAndUnknown() {
+    CsvColumnTypes columnTypes = columnTypes();
+    assertSame(CsvColumnType.Standard.TIMESTAMPTZ, columnTypes.resolve("TimestampTZ"));
+    assertNull(columnTypes.resolve("no_such_type"));
+  }
+
+  @Test
+  public void testRegister_CustomType() {
+    CsvColumnType upper = new CsvColumnType() {
+      @Override
+      public int sqlType() {
+        return Types.VARCHAR;
+      }
+
+      @Override
+      public Object parse(String value) {
+        return value.toUpperCase();
+      }
+    };
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("upper", (CsvColumnTypes.Customizer) types -> types.register(upper, "upper"));
+    CsvColumnTypes columnTypes = new CsvColumnTypes(jdbcTemplate, beanFactory.getBeanProvider(CsvColumnTypes.Customizer.class));
+    assertSame(upper, columnTypes.resolve("upper"));
+    assertEquals("ABC", columnTypes.resolve("upper").format("abc"));
+  }
+
+  @Test
+  public void testEnumType_ValidatesLabels() {
+    CsvColumnType mood = new CsvEnumColumnType("mood", List.of("sad", "ok", "happy"));
+    assertEquals("ok", mood.format("ok"));
+    assertThrows(IllegalArgumentException.class, () -> mood.parse("angry"));
+  }
+
+  private CsvColumnTypes columnTypes() {
+    return new CsvColumnTypes(jdbcTemplate, new StaticListableBeanFactory().getBeanProvider(CsvColumnTypes.Customizer.class));
+  }
+
+  private static CsvDataloaderEntry entry() {
+    return CsvDataloaderEntry.builder()
+      .table("typed")
+      .file("typed.csv")
+      .emptyIsNull(true)
+      .build();
+  }
+}
@@ -0,0 +1,360 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dcsa.skernel.dataloader.DataloaderAppConfig;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderCsvDefaults;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.dcsa.skernel.dataloader.DataloaderConfig.OnChecksumError;
+import org.dcsa.skernel.dataloader.DataloaderDryRun;
+import org.dcsa.skernel.dataloader.DataloaderMetrics;
+import org.dcsa.skernel.dataloader.DataloaderScheduler;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvDataloaderTest {
+  private static final String LOCATION_CONFIG = """
+    defaults:
+      csvheader: true
+    tables:
+      - table: location
+        file: location.csv
+    """;
+
+  private final DriverManagerDataSource dataSource =
+    new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+  private final TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final DataloaderMetrics metrics = new DataloaderMetrics(
+    new StaticListableBeanFactory(Map.of("meterRegistry", registry)).getBeanProvider(MeterRegistry.class));
+  private final DataloaderScheduler scheduler = new DataloaderScheduler();
+  private final CsvDataloader csvDataloader = new CsvDataloader(
+    jdbcTemplate,
+    transactionTemplate,
+    new CsvDataloaderHistory(jdbcTemplate, transactionTemplate, metrics),
+    new CsvDataloaderManifest(jdbcTemplate),
+    new CsvColumnTypes(jdbcTemplate, new StaticListableBeanFactory().getBeanProvider(CsvColumnTypes.Customizer.class)),
+    scheduler,
+    new DataloaderAppConfig(),
+    metrics);
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeEach
+  public void setUp() {
+    jdbcTemplate.execute("create table location (id integer primary key, name varchar(100) not null)");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    scheduler.destroy();
+    jdbcTemplate.execute("shutdown");
+  }
+
+  @Test
+  public void testLoadData_Batched() throws IOException {
+    DataloaderSource source = source("""
+      defaults:
+        csvheader: true
+      tables:
+        - table: location
+          file: location.csv
+          batchSize: 2
+      """, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      2,Rotterdam
+      3,Hamburg
+      4,Antwerp
+      5,Singapore
+      """));
+
+    csvDataloader.loadData(source);
+
+    assertEquals(5, locationCount());
+    assertEquals("Singapore", jdbcTemplate.queryForObject("select name from location where id = 5", String.class));
+    DistributionSummary batchSizes = registry.get("dataloader.csv.batch.size").tag("strategy", "insert").summary();
+    assertEquals(3, batchSizes.count());
+    assertEquals(5, batchSizes.totalAmount());
+    assertEquals(2, batchSizes.max());
+  }
+
+  @Test
+  public void testLoadData_FirstLoadWithoutCopy() throws IOException {
+    DataloaderSource source = source(LOCATION_CONFIG, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      2,Rotterdam
+      """));
+
+    csvDataloader.loadData(source);
+
+    // H2 does not support COPY, so the empty table is populated with batched inserts
+    assertEquals(2, locationCount());
+    assertEquals(1, registry.get("dataloader.csv.transaction").tag("strategy", "insert").timer().count());
+    assertNull(registry.find("dataloader.csv.transaction").tag("strategy", "copy").timer());
+    assertEquals(2, registry.get("dataloader.csv.rows").tag("strategy", "insert").tag("outcome", "inserted").counter().count());
+  }
+
+  @Test
+  public void testLoadData_HistorySkipsUnchangedFile() throws IOException {
+    DataloaderSource source = source(LOCATION_CONFIG, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      2,Rotterdam
+      """));
+
+    csvDataloader.loadData(source);
+    csvDataloader.loadData(source);
+
+    assertEquals(2, locationCount());
+    assertEquals(1, historyCount());
+    assertEquals(2, jdbcTemplate.queryForObject("select rows_affected from csvloader_history", Integer.class));
+    assertEquals(Files.size(tempDir.resolve("location.csv")),
+      jdbcTemplate.queryForObject("select content_length from csvloader_history", Long.class));
+    assertEquals(1, registry.get("dataloader.csv.tables.skipped").tag("reason", "unchanged").counter().count());
+  }
+
+  @Test
+  public void testLoadData_HistoryRemembersVersionOnChecksumMatch() throws IOException {
+    DataloaderSource source = source(LOCATION_CONFIG, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      """));
+    csvDataloader.loadData(source);
+
+    // Same contents with another modification time, the file is hashed once more and the new version is recorded
+    Path file = tempDir.resolve("location.csv");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 60_000));
+    csvDataloader.loadData(source);
+    csvDataloader.loadData(source);
+
+    assertEquals(1, historyCount());
+    assertEquals(Files.getLastModifiedTime(file).toString(),
+      jdbcTemplate.queryForObject("select last_modified from csvloader_history", String.class));
+    assertEquals(1, registry.get("dataloader.csv.tables.skipped").tag("reason", "checksum").counter().count());
+    assertEquals(1, registry.get("dataloader.csv.tables.skipped").tag("reason", "unchanged").counter().count());
+  }
+
+  @Test
+  public void testLoadData_HistoryTableUpgraded() throws IOException {
+    // The history table as created before the file versions were recorded
+    jdbcTemplate.execute("""
+      create table csvloader_history (
+        table_name varchar(100) not null,
+        source text not null,
+        checksum varchar(64) not null,
+        rows_affected integer not null,
+        created timestamp with time zone not null
+      )""");
+    DataloaderSource source = source(LOCATION_CONFIG, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      """));
+
+    csvDataloader.loadData(source);
+
+    assertEquals(Files.size(tempDir.resolve("location.csv")),
+      jdbcTemplate.queryForObject("select content_length from csvloader_history", Long.class));
+  }
+
+  @Test
+  public void testPerformForEntry_StringReader() throws IOException {
+    DataloaderSource source = source(LOCATION_CONFIG, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      """));
+    CsvDataloaderHistory history = new CsvDataloaderHistory(jdbcTemplate, transactionTemplate, metrics);
+    CsvDataloaderEntry entry = CsvDataloaderEntry.builder().table("location").file("location.csv").build();
+    List<String> lines = new ArrayList<>();
+    BiFunction<StringReader, Boolean, Integer> consumer = (reader, refresh) -> {
+      new BufferedReader(reader).lines().forEach(lines::add);
+      return 1;
+    };
+
+    assertTrue(history.performForEntry(source, entry, consumer));
+    assertFalse(history.performForEntry(source, entry, consumer));
+
+    assertEquals(List.of("id:int,name", "1,Copenhagen"), lines);
+    assertEquals(1, historyCount());
+  }
+
+  @Test
+  public void testLoadData_FailedLoadWritesNoHistory() throws IOException {
+    DataloaderSource source = source("""
+      defaults:
+        csvheader: true
+      tables:
+        - table: location
+          file: location.csv
+          batchSize: 1
+      """, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      x,Rotterdam
+      """));
+
+    CsvDataloaderException exception = assertThrows(CsvDataloaderException.class, () -> csvDataloader.loadData(source));
+
+    assertTrue(exception.getMessage().contains("location.csv:3"), exception.getMessage());
+    // The first row was written in a batch of its own, it is rolled back together with the history
+    assertEquals(0, locationCount());
+    assertEquals(0, historyCount());
+  }
+
+  @Test
+  public void testDryRun_WithoutRollback() throws IOException {
+    DataloaderSource source = source(LOCATION_CONFIG, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      x,Rotterdam
+      3,Hamburg
+      """));
+    DataloaderDryRun dryRun = new DataloaderDryRun(DataloaderDryRun.DEFAULT_MAX_ERRORS, false, 1000);
+
+    csvDataloader.dryRun(source, dryRun);
+
+    DataloaderDryRun.Report report = dryRun.report();
+    assertFalse(report.rollback());
+    assertEquals(3, report.rows());
+    assertEquals(1, report.errorCount());
+    DataloaderDryRun.FileReport file = report.files().get(0);
+    assertEquals("location", file.table());
+    assertTrue(file.errors().get(0).contains("location.csv:3"), file.errors().get(0));
+    assertNull(file.dbMillis());
+    // There is no load history, so the configured rate is used
+    assertEquals(3, file.projectedDbMillis());
+    assertEquals(DataloaderDryRun.Projection.ESTIMATE, file.projection());
+    assertEquals(DataloaderDryRun.Projection.ESTIMATE, report.projection());
+    assertEquals(0, locationCount());
+    assertEquals(0, historyCount());
+  }
+
+  @Test
+  public void testDryRun_ProjectedFromHistory() throws IOException {
+    DataloaderSource source = source(LOCATION_CONFIG, Map.of("location.csv", """
+      id:int,name
+      1,Copenhagen
+      2,Rotterdam
+      3,Hamburg
+      4,Antwerp
+      """));
+    csvDataloader.loadData(source);
+    // Earlier loads of the table wrote 2000 rows per second
+    jdbcTemplate.update("update csvloader_history set rows_affected = 2000, load_millis = 1000");
+    DataloaderDryRun dryRun = new DataloaderDryRun(DataloaderDryRun.DEFAULT_MAX_ERRORS, false, 1);
+
+    csvDataloader.dryRun(source, dryRun);
+
+    DataloaderDryRun.FileReport file = dryRun.report().files().get(0);
+    assertEquals(2, file.projectedDbMillis());
+    assertEquals(DataloaderDryRun.Projection.HISTORY, file.projection());
+    assertEquals(DataloaderDryRun.Projection.HISTORY, dryRun.report().projection());
+  }
+
+  @Test
+  public void testDryRun_WithRollback() throws IOException {
+    jdbcTemplate.execute("create table facility (id integer primary key, name varchar(100) not null)");
+    DataloaderSource source = source("""
+      defaults:
+        csvheader: true
+      tables:
+        - table: location
+          file: location.csv
+        - table: facility
+          file: facility.csv
+      """, Map.of(
+      "location.csv", """
+        id:int,name
+        1,Copenhagen
+        1,Rotterdam
+        """,
+      "facility.csv", """
+        id:int,name
+        1,Terminal 1
+        2,Terminal 2
+        """));
+    DataloaderDryRun dryRun = new DataloaderDryRun(DataloaderDryRun.DEFAULT_MAX_ERRORS, true, 0);
+
+    csvDataloader.dryRun(source, dryRun);
+
+    DataloaderDryRun.Report report = dryRun.report();
+    assertTrue(report.rollback());
+    assertEquals(4, report.rows());
+    // The database rejects the duplicate key, the location table is rolled back to its savepoint and facility is still validated
+    assertEquals(1, report.errorCount());
+    DataloaderDryRun.FileReport location = report.files().get(0);
+    DataloaderDryRun.FileReport facility = report.files().get(1);
+    assertEquals(1, location.errorCount());
+    assertEquals(0, facility.errorCount());
+    assertNotNull(facility.dbMillis());
+    assertEquals(DataloaderDryRun.Projection.MEASURED, report.projection());
+    // Everything written by the dry run is rolled back
+    assertEquals(0, locationCount());
+    assertEquals(0, jdbcTemplate.queryForObject("select count(*) from facility", Integer.class));
+  }
+
+  @Test
+  public void testCopyWriter_NotStartedWithoutPostgres() {
+    CsvDataloaderEntry entry = CsvDataloaderEntry.builder().table("location").file("location.csv").build();
+    CsvRowBinder binder = new CsvRowBinder(entry, List.of(
+      new CsvDataloader.Column("id", CsvColumnType.Standard.INT),
+      new CsvDataloader.Column("name", CsvColumnType.Standard.STRING)));
+
+    assertNull(jdbcTemplate.execute((ConnectionCallback<CsvCopyWriter>) connection ->
+      CsvCopyWriter.start(connection, entry, binder)));
+  }
+
+  private DataloaderSource source(String config, Map<String, String> files) throws IOException {
+    Files.writeString(tempDir.resolve("csvloader.yml"), config);
+    for (Map.Entry<String, String> file : files.entrySet()) {
+      Files.writeString(tempDir.resolve(file.getKey()), file.getValue());
+    }
+    return DataloaderSource.builder()
+      .path("file:" + tempDir.toAbsolutePath())
+      .type("csv")
+      .groups(Set.of("test"))
+      .build()
+      .withCsvDefaults(new DataloaderCsvDefaults(OnChecksumError.REFRESH));
+  }
+
+  private int historyCount() {
+    return jdbcTemplate.queryForObject("select count(*) from csvloader_history", Integer.class);
+  }
+
+  private int locationCount() {
+    return jdbcTemplate.queryForObject("select count(*) from location", Integer.class);
+  }
+}
@@ -0,0 +1,105 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloader.Column;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CsvIncrementalWriterTest {
+  private static final List<Column> COLUMNS = List.of(
+    new Column("code", CsvColumnType.Standard.STRING),
+    new Column("kind", CsvColumnType.Standard.INT),
+    new Column("name", CsvColumnType.Standard.STRING)
+  );
+  private static final CsvDataloaderEntry ENTRY = CsvDataloaderEntry.builder()
+    .table("facility")
+    .file("facility.csv")
+    .primaryKey("code, kind")
+    .batchSize(100)
+    .deleteRemoved(true)
+    .build();
+
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private CsvDataloaderManifest manifest;
+  @Captor private ArgumentCaptor<Map<String, String>> changed;
+  @Captor private ArgumentCaptor<Collection<String>> removed;
+  @Captor private ArgumentCaptor<List<Object[]>> deletedKeys;
+
+  private final CsvRowBinder binder = new CsvRowBinder(ENTRY, COLUMNS);
+
+  @Test
+  public void testCompositePrimaryKey() {
+    RecordingWriter firstLoad = new RecordingWriter();
+    CsvIncrementalWriter writer = new CsvIncrementalWriter(jdbcTemplate, manifest, ENTRY, binder, firstLoad, false);
+    writer.write(new String[] {"DKCPH", "1", "Terminal"}, 2);
+    writer.write(new String[] {"DKCPH", "2", "Depot"}, 3);
+    writer.write(new String[] {"NLRTM", "1", "Terminal"}, 4);
+    writer.finish();
+    verify(manifest).update(eq("facility"), changed.capture(), removed.capture(), eq(100));
+    // Rows sharing the first key column are distinct rows
+    assertEquals(3, firstLoad.rows.size());
+    assertEquals(3, changed.getValue().size());
+
+    when(manifest.load("facility")).thenReturn(new HashMap<>(changed.getValue()));
+    RecordingWriter secondLoad = new RecordingWriter();
+    writer = new CsvIncrementalWriter(jdbcTemplate, manifest, ENTRY, binder, secondLoad, true);
+    writer.write(new String[] {"DKCPH", "1", "Terminal"}, 2);
+    writer.write(new String[] {"DKCPH", "2", "Container depot"}, 3);
+    assertEquals(2, writer.finish());
+
+    assertEquals(1, secondLoad.rows.size());
+    assertArrayEquals(new String[] {"DKCPH", "2", "Container depot"}, secondLoad.rows.get(0));
+    verify(jdbcTemplate).batchUpdate(eq("delete from facility where code = ? and kind = ?"), deletedKeys.capture(),
+      anyInt(), any());
+    assertEquals(1, deletedKeys.getValue().size());
+    assertArrayEquals(new Object[] {"NLRTM", 1}, deletedKeys.getValue().get(0));
+  }
+
+  @Test
+  public void testPrimaryKeyNotAColumn() {
+    CsvDataloaderEntry entry = CsvDataloaderEntry.builder().table("facility").file("facility.csv").primaryKey("code, size").build();
+    assertThrows(CsvDataloaderException.class,
+      () -> new CsvIncrementalWriter(jdbcTemplate, manifest, entry, binder, new RecordingWriter(), true));
+  }
+
+  @Test
+  public void testNullInPrimaryKey() {
+    CsvIncrementalWriter writer = new CsvIncrementalWriter(jdbcTemplate, manifest, ENTRY, binder, new RecordingWriter(), false);
+    assertThrows(CsvDataloaderException.class, () -> writer.write(new String[] {"DKCPH", null, "Terminal"}, 2));
+  }
+
+  private static class RecordingWriter implements CsvRowWriter {
+    private final List<String[]> rows = new ArrayList<>();
+
+    @Override
+    public void write(String[] values, int lineNo) {
+      rows.add(values.clone());
+    }
+
+    @Override
+    public int finish() {
+      return rows.size();
+    }
+  }
+}
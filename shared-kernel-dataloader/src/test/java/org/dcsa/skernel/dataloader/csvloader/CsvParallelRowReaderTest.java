@@ -0,0 +1,75 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvParallelRowReaderTest {
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @TempDir
+  Path tempDir;
+
+  @AfterEach
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void testRead_SameRowsAsJackson() throws IOException {
+    StringBuilder csv = new StringBuilder("code,name,note\n");
+    for (int i = 0; i < 1000; i++) {
+      csv.append("C").append(i).append(",\"Name, with\nnewline ").append(i).append("\",\"say \"\"hi\"\"\"\r\n");
+      csv.append("D").append(i).append(",\u00c6r\u00f8 ").append(i).append(",5\" pipe\n");
+    }
+    csv.append("last,,");
+
+    assertEquals(readWithJackson(csv.toString()), readInParallel(csv.toString(), 100));
+  }
+
+  @Test
+  public void testRead_ByteOrderMarkIsSkipped() throws IOException {
+    assertEquals(List.of(List.of("code", "name"), List.of("DKCPH", "Copenhagen")),
+      readInParallel("\uFEFFcode,name\nDKCPH,Copenhagen\n", 1024));
+  }
+
+  @Test
+  public void testRead_UnterminatedQuote() {
+    assertThrows(IOException.class, () -> readInParallel("code,name\nDKCPH,\"Copenhagen\n", 1024));
+  }
+
+  private List<List<String>> readInParallel(String csv, int segmentSize) throws IOException {
+    Path path = Files.writeString(tempDir.resolve("data.csv"), csv, StandardCharsets.UTF_8);
+    try (CsvRowSource rows = new CsvParallelRowReader(path, segmentSize, pool)) {
+      return readAll(rows);
+    }
+  }
+
+  private static List<List<String>> readWithJackson(String csv) throws IOException {
+    try (CsvRowSource rows = new CsvRowReader(new CsvMapper().getFactory().createParser(new StringReader(csv)))) {
+      return readAll(rows);
+    }
+  }
+
+  private static List<List<String>> readAll(CsvRowSource rows) throws IOException {
+    List<List<String>> result = new ArrayList<>();
+    while (rows.hasNext()) {
+      rows.next();
+      result.add(rows.toList());
+    }
+    return result;
+  }
+}
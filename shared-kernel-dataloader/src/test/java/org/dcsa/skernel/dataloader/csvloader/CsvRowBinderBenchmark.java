@@ -0,0 +1,122 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloader.Column;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares converting csv rows to statement parameters through a list and an argument array per row (as the
+ * csvloader did before {@link CsvRowBinder}) with reading them into a reused array bound by the row binder.
+ *
+ * <p>The statement discards the parameters, so only the conversion is measured. Run with the test classpath, e.g.
+ * from the IDE through {@link #main(String[])}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvRowBinderBenchmark {
+  private static final int ROWS = 10_000;
+  private static final List<Column> COLUMNS = List.of(
+    new Column("un_location_code", CsvColumnType.Standard.STRING),
+    new Column("size", CsvColumnType.Standard.INT),
+    new Column("active", CsvColumnType.Standard.BOOLEAN),
+    new Column("weight", CsvColumnType.Standard.DOUBLE),
+    new Column("remark", CsvColumnType.Standard.STRING)
+  );
+
+  private final CsvMapper csvMapper = new CsvMapper();
+  private final CsvDataloaderEntry entry = CsvDataloaderEntry.builder()
+    .table("benchmark")
+    .file("benchmark.csv")
+    .otherNullValues(List.of("N/A", "NULL", "-"))
+    .build();
+  private final CsvRowBinder binder = new CsvRowBinder(entry, COLUMNS);
+  private final PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+    PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> null);
+  private String csv;
+
+  @Setup
+  public void setup() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < ROWS; i++) {
+      builder.append("DK").append(i % 1000).append(',')
+        .append(i).append(',')
+        .append(i % 2 == 0).append(',')
+        .append(i * 1.5).append(',')
+        .append(i % 3 == 0 ? "N/A" : "remark " + i).append('\n');
+    }
+    csv = builder.toString();
+  }
+
+  @Benchmark
+  public int listAndArgumentArray() throws IOException, SQLException {
+    int rows = 0;
+    try (MappingIterator<List<String>> lines = csvMapper.readerForListOf(String.class)
+      .with(CsvParser.Feature.WRAP_AS_ARRAY)
+      .readValues(new StringReader(csv))) {
+      while (lines.hasNext()) {
+        Object[] args = toArgs(lines.next());
+        for (int i = 0; i < args.length; i++) {
+          statement.setObject(i + 1, args[i]);
+        }
+        rows++;
+      }
+    }
+    return rows;
+  }
+
+  @Benchmark
+  public int reusedArrayAndBinder() throws IOException, SQLException {
+    int rows = 0;
+    try (CsvRowReader reader = new CsvRowReader(csvMapper.getFactory().createParser(new StringReader(csv)))) {
+      while (reader.hasNext()) {
+        String[] values = reader.next();
+        binder.normalizeNulls(values);
+        binder.bind(statement, values);
+        rows++;
+      }
+    }
+    return rows;
+  }
+
+  private Object[] toArgs(List<String> data) {
+    return IntStream.range(0, COLUMNS.size()).mapToObj(i -> {
+      String arg = data.get(i);
+      if (arg == null || entry.otherNullValues().contains(arg)) {
+        return null;
+      }
+      return COLUMNS.get(i).type().parse(arg);
+    }).toArray();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CsvRowBinderBenchmark.class.getSimpleName()).build()).run();
+  }
+}
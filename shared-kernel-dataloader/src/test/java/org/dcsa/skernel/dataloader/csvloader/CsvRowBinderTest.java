@@ -0,0 +1,85 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloader.Column;
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvRowBinderTest {
+  private static final List<Column> COLUMNS = List.of(
+    new Column("code", CsvColumnType.Standard.STRING),
+    new Column("size", CsvColumnType.Standard.INT),
+    new Column("active", CsvColumnType.Standard.BOOLEAN)
+  );
+
+  @Test
+  public void testRowReader_ReusesArray() throws IOException {
+    try (CsvRowReader reader = reader("a,1,true\nbb,22\n")) {
+      assertTrue(reader.hasNext());
+      String[] first = reader.next();
+      assertEquals(3, reader.size());
+      assertEquals(List.of("a", "1", "true"), reader.toList());
+      String[] second = reader.next();
+      assertSame(first, second);
+      assertEquals(2, reader.size());
+      assertEquals(List.of("bb", "22"), reader.toList());
+      assertFalse(reader.hasNext());
+    }
+  }
+
+  @Test
+  public void testNormalizeNulls_EmptyAndOtherNullValues() {
+    CsvRowBinder binder = new CsvRowBinder(entry(true, List.of("N/A")), COLUMNS);
+    String[] values = {"", "N/A", "true"};
+    binder.normalizeNulls(values);
+    assertArrayEquals(new String[] {null, null, "true"}, values);
+  }
+
+  @Test
+  public void testNormalizeNulls_EmptyKept() {
+    CsvRowBinder binder = new CsvRowBinder(entry(false, null), COLUMNS);
+    String[] values = {"", "1", "true"};
+    binder.normalizeNulls(values);
+    assertArrayEquals(new String[] {"", "1", "true"}, values);
+  }
+
+  @Test
+  public void testFormat_CanonicalValues() {
+    CsvRowBinder binder = new CsvRowBinder(entry(true, null), COLUMNS);
+    assertEquals("DKCPH", binder.format(0, "DKCPH"));
+    assertEquals("7", binder.format(1, "007"));
+    assertEquals("false", binder.format(2, "yes"));
+    assertEquals(7, binder.parse(1, "7"));
+  }
+
+  @Test
+  public void testFormat_InvalidValue() {
+    CsvRowBinder binder = new CsvRowBinder(entry(true, null), COLUMNS);
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> binder.format(1, "x"));
+    assertTrue(e.getMessage().contains("size"), e.getMessage());
+  }
+
+  private static CsvRowReader reader(String csv) throws IOException {
+    return new CsvRowReader(new CsvMapper().getFactory().createParser(new StringReader(csv)));
+  }
+
+  private static CsvDataloaderEntry entry(boolean emptyIsNull, List<String> otherNullValues) {
+    return CsvDataloaderEntry.builder()
+      .table("test")
+      .file("test.csv")
+      .emptyIsNull(emptyIsNull)
+      .otherNullValues(otherNullValues)
+      .build();
+  }
+}
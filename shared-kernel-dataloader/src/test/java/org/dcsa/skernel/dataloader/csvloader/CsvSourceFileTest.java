@@ -0,0 +1,284 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvSourceFileTest {
+  private static final String CONTENTS = "code,name\nDKCPH,Copenhagen\n";
+  private static final String ETAG = "\"v1\"";
+
+  private HttpServer server;
+  private final List<String> ifNoneMatchHeaders = new ArrayList<>();
+  private int bodiesSent = 0;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/data.csv", exchange -> {
+      String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+      ifNoneMatchHeaders.add(ifNoneMatch);
+      exchange.getResponseHeaders().add("ETag", ETAG);
+      if (ETAG.equals(ifNoneMatch)) {
+        exchange.sendResponseHeaders(304, -1);
+      } else {
+        byte[] body = CONTENTS.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+        bodiesSent++;
+      }
+      exchange.close();
+    });
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testHttp_FetchesAndRemembersETag() throws IOException {
+    try (CsvSourceFile file = CsvSourceFile.fetch(url(), null)) {
+      assertFalse(file.isUnchanged());
+      assertEquals(ETAG, file.version().etag());
+      assertEquals(CONTENTS.length(), file.version().contentLength());
+      assertEquals(CONTENTS, read(file));
+    }
+    assertEquals(1, bodiesSent);
+  }
+
+  @Test
+  public void testHttp_UnchangedIsNotTransferred() throws IOException {
+    CsvSourceFile.Version known = new CsvSourceFile.Version(ETAG, null, (long) CONTENTS.length());
+    try (CsvSourceFile file = CsvSourceFile.fetch(url(), known)) {
+      assertTrue(file.isUnchanged());
+      assertNull(file.checksum());
+    }
+    assertEquals(List.of(ETAG), ifNoneMatchHeaders);
+    assertEquals(0, bodiesSent);
+  }
+
+  @Test
+  public void testHttp_ChangedIsTransferred() throws IOException {
+    CsvSourceFile.Version known = new CsvSourceFile.Version("\"v0\"", null, null);
+    try (CsvSourceFile file = CsvSourceFile.fetch(url(), known)) {
+      assertFalse(file.isUnchanged());
+      assertEquals(CONTENTS, read(file));
+    }
+    assertEquals(1, bodiesSent);
+  }
+
+  @Test
+  public void testFile_UnchangedSizeAndModificationTime() throws IOException {
+    Path path = Files.writeString(tempDir.resolve("data.csv"), CONTENTS);
+    String url = path.toUri().toURL().toString();
+
+    CsvSourceFile.Version version;
+    String checksum;
+    try (CsvSourceFile file = CsvSourceFile.fetch(url, null)) {
+      version = file.version();
+      checksum = file.checksum();
+      assertEquals(CONTENTS.length(), version.contentLength());
+    }
+    try (CsvSourceFile file = CsvSourceFile.fetch(url, version)) {
+      assertTrue(file.isUnchanged());
+    }
+
+    Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 1000));
+    try (CsvSourceFile file = CsvSourceFile.fetch(url, version)) {
+      assertFalse(file.isUnchanged());
+      assertEquals(checksum, file.checksum());
+      assertNotEquals(version, file.version());
+    }
+  }
+
+  @Test
+  public void testFile_GzipIsDecompressed() throws IOException {
+    Path path = tempDir.resolve("data.csv.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+      out.write(CONTENTS.getBytes(StandardCharsets.UTF_8));
+    }
+    try (CsvSourceFile file = CsvSourceFile.fetch(path.toUri().toURL().toString(), null)) {
+      assertEquals(Files.size(path), file.version().contentLength());
+      assertEquals(CONTENTS, read(file));
+    }
+  }
+
+  @Test
+  public void testFile_ZstdIsDecompressed() throws IOException {
+    Path path = tempDir.resolve("data.csv.zst");
+    try (OutputStream out = new ZstdOutputStream(Files.newOutputStream(path))) {
+      out.write(CONTENTS.getBytes(StandardCharsets.UTF_8));
+    }
+    try (CsvSourceFile file = CsvSourceFile.fetch(path.toUri().toURL().toString(), null)) {
+      assertEquals(Files.size(path), file.version().contentLength());
+      assertEquals(CONTENTS, read(file));
+    }
+  }
+
+  @Test
+  public void testArchive_EntriesAreStreamed() throws IOException {
+    Path path = tempDir.resolve("source.zip");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(path))) {
+      out.putNextEntry(new ZipEntry("data.d/csvloader.yml"));
+      out.write("tables: []\n".getBytes(StandardCharsets.UTF_8));
+      out.putNextEntry(new ZipEntry("data.d/data.csv"));
+      out.write(CONTENTS.getBytes(StandardCharsets.UTF_8));
+    }
+    String sourcePath = path.toUri().toURL() + "!/data.d";
+
+    String checksum;
+    try (CsvSourceLocation location = CsvSourceLocation.open(sourcePath)) {
+      try (InputStream config = location.openConfig()) {
+        assertEquals("tables: []\n", new String(config.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      try (CsvSourceFile file = location.fetch("data.csv", null)) {
+        assertEquals(sourcePath + "/data.csv", file.url());
+        assertEquals(CONTENTS, read(file));
+        checksum = file.checksum();
+      }
+      assertThrows(FileNotFoundException.class, () -> location.fetch("missing.csv", null));
+    }
+    try (CsvSourceLocation location = CsvSourceLocation.open(sourcePath);
+         CsvSourceFile file = location.fetch("data.csv", null)) {
+      assertEquals(checksum, file.checksum());
+    }
+  }
+
+  @Test
+  public void testArchive_EntriesChecksummedByContentAndVersionedByArchive() throws IOException {
+    Path path = zip(tempDir.resolve("source.zip"));
+    Path plain = Files.writeString(tempDir.resolve("data.csv"), CONTENTS);
+    String sourcePath = path.toUri().toURL() + "!/data.d";
+
+    CsvSourceFile.Version version;
+    try (CsvSourceLocation location = CsvSourceLocation.open(sourcePath);
+         CsvSourceFile file = location.fetch("data.csv", null);
+         CsvSourceFile plainFile = CsvSourceFile.fetch(plain.toUri().toURL().toString(), null)) {
+      assertEquals(plainFile.checksum(), file.checksum());
+      assertEquals(Files.size(path), file.version().contentLength());
+      version = file.version();
+    }
+    try (CsvSourceLocation location = CsvSourceLocation.open(sourcePath);
+         CsvSourceFile file = location.fetch("data.csv", version)) {
+      assertTrue(file.isUnchanged());
+    }
+  }
+
+  @Test
+  public void testArchive_RemoteArchiveFetchedConditionally() throws IOException {
+    byte[] archive = Files.readAllBytes(zip(tempDir.resolve("source.zip")));
+    List<String> archiveIfNoneMatchHeaders = new ArrayList<>();
+    server.createContext("/source.zip", exchange -> {
+      String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+      archiveIfNoneMatchHeaders.add(ifNoneMatch);
+      exchange.getResponseHeaders().add("ETag", ETAG);
+      if (ETAG.equals(ifNoneMatch)) {
+        exchange.sendResponseHeaders(304, -1);
+      } else {
+        exchange.sendResponseHeaders(200, archive.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(archive);
+        }
+      }
+      exchange.close();
+    });
+    String sourcePath = "http://localhost:" + server.getAddress().getPort() + "/source.zip!/data.d";
+
+    CsvSourceFile.Version version;
+    try (CsvSourceLocation location = CsvSourceLocation.open(sourcePath);
+         CsvSourceFile file = location.fetch("data.csv", null)) {
+      assertEquals(CONTENTS, read(file));
+      version = file.version();
+      assertEquals(ETAG, version.etag());
+    }
+    try (CsvSourceLocation location = CsvSourceLocation.open(sourcePath)) {
+      try (InputStream config = location.openConfig()) {
+        assertEquals("tables: []\n", new String(config.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      try (CsvSourceFile file = location.fetch("data.csv", version)) {
+        assertTrue(file.isUnchanged());
+      }
+      try (CsvSourceFile file = location.fetch("data.csv", null)) {
+        assertEquals(CONTENTS, read(file));
+      }
+    }
+    assertEquals(Arrays.asList(null, ETAG), archiveIfNoneMatchHeaders);
+  }
+
+  @Test
+  public void testJarUrl_OpenedAsDirectory() throws IOException {
+    // e.g. a directory in a Spring Boot fat jar, the JDK opens the entries
+    Path path = zip(tempDir.resolve("application.jar"));
+    String sourcePath = "jar:" + path.toUri().toURL() + "!/data.d";
+
+    try (CsvSourceLocation location = CsvSourceLocation.open(sourcePath)) {
+      try (InputStream config = location.openConfig()) {
+        assertEquals("tables: []\n", new String(config.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      try (CsvSourceFile file = location.fetch("data.csv", null)) {
+        assertEquals(sourcePath + "/data.csv", file.url());
+        assertEquals(CONTENTS, read(file));
+      }
+    }
+  }
+
+  private static Path zip(Path path) throws IOException {
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(path))) {
+      out.putNextEntry(new ZipEntry("data.d/csvloader.yml"));
+      out.write("tables: []\n".getBytes(StandardCharsets.UTF_8));
+      out.putNextEntry(new ZipEntry("data.d/data.csv"));
+      out.write(CONTENTS.getBytes(StandardCharsets.UTF_8));
+    }
+    return path;
+  }
+
+  private String url() {
+    return "http://localhost:" + server.getAddress().getPort() + "/data.csv";
+  }
+
+  private static String read(CsvSourceFile file) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    try (Reader reader = file.openReader()) {
+      char[] buffer = new char[1024];
+      int n;
+      while ((n = reader.read(buffer)) != -1) {
+        sb.append(buffer, 0, n);
+      }
+    }
+    return sb.toString();
+  }
+}
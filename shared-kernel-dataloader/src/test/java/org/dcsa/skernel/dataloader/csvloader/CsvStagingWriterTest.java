@@ -0,0 +1,53 @@
+package org.dcsa.skernel.dataloader.csvloader;
+
+import org.dcsa.skernel.dataloader.csvloader.CsvDataloaderConfig.CsvDataloaderEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvStagingWriterTest {
+
+  @Test
+  public void testPrimaryKey_DefaultsToFirstColumn() {
+    CsvDataloaderEntry entry = CsvDataloaderEntry.builder().table("facility").build();
+    assertEquals(List.of("id"), CsvStagingWriter.primaryKey(entry, List.of("id", "name")));
+  }
+
+  @Test
+  public void testPrimaryKey_Composite() {
+    CsvDataloaderEntry entry = CsvDataloaderEntry.builder().table("facility").primaryKey("code, kind").build();
+    assertEquals(List.of("code", "kind"), CsvStagingWriter.primaryKey(entry, List.of("code", "kind", "name")));
+  }
+
+  @Test
+  public void testStagingTable_Temporary() {
+    assertEquals("pg_temp.facility_staging", CsvStagingWriter.stagingTable("facility"));
+    assertEquals("pg_temp.facility_staging", CsvStagingWriter.stagingTable("reference.facility"));
+  }
+
+  @Test
+  public void testMergeSql_OnlyChangedRowsUpdated() {
+    assertEquals(
+      "insert into un_location as target (code, name, country) select code, name, country from un_location_staging"
+        + " on conflict (code) do update set name = excluded.name, country = excluded.country"
+        + " where (target.name, target.country) is distinct from (excluded.name, excluded.country)",
+      CsvStagingWriter.mergeSql("un_location", "un_location_staging", List.of("code", "name", "country"), List.of("code")));
+  }
+
+  @Test
+  public void testMergeSql_OnlyPrimaryKey() {
+    assertEquals(
+      "insert into country as target (code) select code from country_staging on conflict do nothing",
+      CsvStagingWriter.mergeSql("country", "country_staging", List.of("code"), List.of("code")));
+  }
+
+  @Test
+  public void testDeleteSql_Composite() {
+    assertEquals(
+      "delete from facility target where not exists (select 1 from facility_staging staging"
+        + " where staging.code = target.code and staging.kind = target.kind)",
+      CsvStagingWriter.deleteSql("facility", "facility_staging", List.of("code", "kind")));
+  }
+}
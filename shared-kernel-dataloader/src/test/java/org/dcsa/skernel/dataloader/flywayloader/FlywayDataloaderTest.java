@@ -0,0 +1,114 @@
+package org.dcsa.skernel.dataloader.flywayloader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dcsa.skernel.dataloader.DataloaderConfig.DataloaderSource;
+import org.dcsa.skernel.dataloader.DataloaderMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FlywayDataloaderTest {
+  private final DriverManagerDataSource dataSource =
+    new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final FlywayDataloader flywayDataloader = new FlywayDataloader(dataSource, new DataloaderMetrics(
+    new StaticListableBeanFactory(Map.of("meterRegistry", registry)).getBeanProvider(MeterRegistry.class)));
+
+  @TempDir
+  Path tempDir;
+
+  @AfterEach
+  public void tearDown() {
+    flywayDataloader.destroy();
+    jdbcTemplate.execute("shutdown");
+  }
+
+  @Test
+  public void testLoadData_ArchiveDirectoryOnly() throws IOException {
+    Path archive = archive(Map.of(
+      "db/archived/V1__seed.sql", "create table seed (id integer primary key); insert into seed values (1), (2);",
+      "db/other/V1__other.sql", "create table other (id integer primary key);"));
+    DataloaderSource source = source("file:" + archive.toAbsolutePath() + "!/db/archived");
+
+    flywayDataloader.loadData(source);
+
+    assertEquals(2, jdbcTemplate.queryForObject("select count(*) from seed", Integer.class));
+    assertEquals(0, tableCount("OTHER"));
+    // db/archived/V2__application.sql is on the test classpath and must not be found through the archive
+    assertEquals(0, tableCount("APPLICATION_SEED"));
+    assertEquals(1, registry.get("dataloader.flyway.migrations").counter().count());
+  }
+
+  @Test
+  public void testLoadData_SkippedWhenUpToDate() throws IOException {
+    Path archive = archive(Map.of("db/archived/V1__seed.sql", "create table seed (id integer primary key);"));
+    DataloaderSource source = source("file:" + archive.toAbsolutePath() + "!/db/archived/");
+
+    flywayDataloader.loadData(source);
+    flywayDataloader.loadData(source);
+
+    assertEquals(1, registry.get("dataloader.flyway").tag("outcome", "migrated").timer().count());
+    assertEquals(1, registry.get("dataloader.flyway").tag("outcome", "skipped").timer().count());
+  }
+
+  @Test
+  public void testLoadData_ArchiveWithoutDirectory() throws IOException {
+    Path archive = archive(Map.of("V1__seed.sql", "create table seed (id integer primary key);"));
+
+    assertThrows(FlywayDataloaderException.class,
+      () -> flywayDataloader.loadData(source("file:" + archive.toAbsolutePath())));
+    assertThrows(FlywayDataloaderException.class,
+      () -> flywayDataloader.loadData(source("file:" + archive.toAbsolutePath() + "!/")));
+  }
+
+  private DataloaderSource source(String path) {
+    return DataloaderSource.builder().path(path).type("flyway").historyTable("flyway_test_history").build();
+  }
+
+  private int tableCount(String table) {
+    return jdbcTemplate.queryForObject(
+      "select count(*) from information_schema.tables where table_name = ?", Integer.class, table);
+  }
+
+  private Path archive(Map<String, String> entries) throws IOException {
+    Path archive = tempDir.resolve("migrations.jar");
+    try (OutputStream out = Files.newOutputStream(archive);
+         ZipOutputStream zip = new ZipOutputStream(out)) {
+      Set<String> directories = new HashSet<>();
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        // Directory entries as written by the jar tool, class loaders only find directories that have one
+        for (int slash = entry.getKey().indexOf('/'); slash >= 0; slash = entry.getKey().indexOf('/', slash + 1)) {
+          String directory = entry.getKey().substring(0, slash + 1);
+          if (directories.add(directory)) {
+            zip.putNextEntry(new ZipEntry(directory));
+            zip.closeEntry();
+          }
+        }
+        zip.putNextEntry(new ZipEntry(entry.getKey()));
+        zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    return archive;
+  }
+}
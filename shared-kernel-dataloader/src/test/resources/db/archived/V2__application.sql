@@ -0,0 +1,2 @@
+-- On the application classpath under the same location as the archived migrations, must not be applied from the archive
+create table application_seed (id integer primary key);
@@ -1,5 +1,9 @@
 package org.dcsa.skernel.infrastructure.http.queryparams;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public enum ComparisonType {
   GT,
   GTE,
@@ -7,4 +11,30 @@ public enum ComparisonType {
   LTE,
   LT,
   ;
+
+  // Precomputed for the lower and upper case spelling of the attribute, as used in "foo:gt"
+  private static final Map<String, ComparisonType> BY_ATTRIBUTE = new HashMap<>();
+
+  static {
+    for (ComparisonType comparisonType : values()) {
+      BY_ATTRIBUTE.put(comparisonType.name(), comparisonType);
+      BY_ATTRIBUTE.put(comparisonType.name().toLowerCase(Locale.ROOT), comparisonType);
+    }
+  }
+
+  /**
+   * The comparison type of a query parameter attribute (ignoring case), e.g. "gt" in "foo:gt", or null if there is
+   * none.
+   */
+  public static ComparisonType fromAttribute(String attribute) {
+    ComparisonType comparisonType = BY_ATTRIBUTE.get(attribute);
+    if (comparisonType == null) {
+      for (ComparisonType candidate : values()) {
+        if (candidate.name().equalsIgnoreCase(attribute)) {
+          return candidate;
+        }
+      }
+    }
+    return comparisonType;
+  }
 }
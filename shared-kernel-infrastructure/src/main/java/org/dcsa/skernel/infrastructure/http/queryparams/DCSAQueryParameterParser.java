@@ -3,6 +3,8 @@ package org.dcsa.skernel.infrastructure.http.queryparams;
 import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -51,28 +53,43 @@ public class DCSAQueryParameterParser {
    *  {@link org.dcsa.skernel.errors.infrastructure.GlobalExceptionHandler} will provide a decent result for these).
    */
   public <T> List<ParsedQueryParameter<T>> parseCustomQueryParameter(Map<String, String> allQueryParameters, String basename, Function<String, T> valueParser) {
-    return allQueryParameters.entrySet().stream()
-      .filter(e -> e.getKey().equals(basename) || e.getKey().startsWith(basename + ":"))
-      .map(entry -> {
-        String fullName = entry.getKey();
-        String[] parts = fullName.split(":", 2);
-        ComparisonType comparisonType;
-        T value;
-        if (parts.length < 2) {
-          assert parts[0].equals(basename);
-          // default if not defined.
-          comparisonType = ComparisonType.EQ;
-        } else {
-          comparisonType = parseComparisonType(fullName, parts[1]);
-        }
-        try {
-          value = valueParser.apply(entry.getValue());
-        } catch (RuntimeException e) {
-          throw ConcreteRequestErrorMessageException.invalidQuery(fullName, "Invalid value for " + fullName, e);
-        }
+    List<ParsedQueryParameter<T>> result = new ArrayList<>(2);
+    for (Map.Entry<String, String> entry : allQueryParameters.entrySet()) {
+      String fullName = entry.getKey();
+      if (fullName.startsWith(basename)
+        && (fullName.length() == basename.length() || fullName.charAt(basename.length()) == ':')) {
+        result.add(parse(fullName, basename.length(), basename, entry.getValue(), valueParser));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Indexes the query parameters by basename in one pass, to parse several DCSA "foo:gt" query parameters without
+   * scanning all query parameters for each of them.
+   *
+   * Example usage:
+   * <pre>{@code
+   *     QueryParameterIndex index = queryParameterParser.index(queryParams);
+   *     List<ParsedQueryParameter<ZonedDateTime>> eventCreatedDateTime = index.parse("eventCreatedDateTime", ZonedDateTime::parse);
+   *     Optional<ParsedQueryParameter<String>> carrierBookingReference = index.parseAtMostOnce("carrierBookingReference", Function.identity());
+   * }</pre>
+   *
+   * @param allQueryParameters All query parameters (typically obtained from {@code @RequestParam Map<String, String> queryParams})
+   */
+  public QueryParameterIndex index(Map<String, String> allQueryParameters) {
+    return new QueryParameterIndex(allQueryParameters);
+  }
 
-        return new ParsedQueryParameter<>(basename, comparisonType, value);
-      }).toList();
+  /**
+   * Parse several DCSA "foo:gt" query parameters with the same value type at once (in one pass over the query
+   * parameters).
+   *
+   * @return The (possibly empty) list of parsed query parameters for each of the basenames.
+   * @throws ConcreteRequestErrorMessageException As {@link #parseCustomQueryParameter(Map, String, Function)}.
+   */
+  public <T> Map<String, List<ParsedQueryParameter<T>>> parseCustomQueryParameters(Map<String, String> allQueryParameters, Collection<String> basenames, Function<String, T> valueParser) {
+    return index(allQueryParameters).parse(basenames, valueParser);
   }
 
   /**
@@ -114,18 +131,37 @@ public class DCSAQueryParameterParser {
   public <T> Optional<ParsedQueryParameter<T>> parseCustomQueryParameterAtMostOnce(Map<String, String> allQueryParameters, String basename, Function<String, T> valueParser) {
     List<ParsedQueryParameter<T>> matches = parseCustomQueryParameter(allQueryParameters, basename, valueParser);
     if (matches.size() > 1) {
-      throw ConcreteRequestErrorMessageException.invalidQuery(basename, "The query parameter " + basename
-        + " can only be used once, but request provided it multiple times (with different attributes/operators).");
+      throw usedMoreThanOnce(basename);
     }
-    return matches.parallelStream().findFirst();
+    return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(0));
   }
 
-  private ComparisonType parseComparisonType(String fullname, String comparisonTypeStr) {
+  /**
+   * Parses a query parameter whose name is the basename (which ends at basenameEnd), optionally followed by ':'
+   * and the comparison type.
+   */
+  static <T> ParsedQueryParameter<T> parse(String fullName, int basenameEnd, String basename, String rawValue, Function<String, T> valueParser) {
+    // default if not defined.
+    ComparisonType comparisonType = ComparisonType.EQ;
+    if (basenameEnd < fullName.length()) {
+      String comparisonTypeStr = fullName.substring(basenameEnd + 1);
+      comparisonType = ComparisonType.fromAttribute(comparisonTypeStr);
+      if (comparisonType == null) {
+        throw ConcreteRequestErrorMessageException.invalidQuery(fullName, "Unknown attribute / operator: " + comparisonTypeStr);
+      }
+    }
+    T value;
     try {
-      return ComparisonType.valueOf(comparisonTypeStr.toUpperCase());
-    } catch (IllegalArgumentException e) {
-      throw ConcreteRequestErrorMessageException.invalidQuery(fullname, "Unknown attribute / operator: " + comparisonTypeStr);
+      value = valueParser.apply(rawValue);
+    } catch (RuntimeException e) {
+      throw ConcreteRequestErrorMessageException.invalidQuery(fullName, "Invalid value for " + fullName, e);
     }
+    return new ParsedQueryParameter<>(basename, comparisonType, value);
+  }
+
+  static ConcreteRequestErrorMessageException usedMoreThanOnce(String basename) {
+    return ConcreteRequestErrorMessageException.invalidQuery(basename, "The query parameter " + basename
+      + " can only be used once, but request provided it multiple times (with different attributes/operators).");
   }
 
 }
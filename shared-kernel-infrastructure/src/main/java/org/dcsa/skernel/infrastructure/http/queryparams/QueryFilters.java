@@ -0,0 +1,227 @@
+package org.dcsa.skernel.infrastructure.http.queryparams;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A registry of the query parameters an endpoint can be filtered on, compiled to JPA {@link Specification}s or
+ * SQL "where" conditions.
+ *
+ * <p>Each query field maps a DCSA query parameter (with the "foo:gt" syntax of {@link DCSAQueryParameterParser})
+ * to a path of the entity (and a column for SQL) and a value parser. Build the registry once and keep it in a
+ * constant, it is immutable and thread-safe. SQL conditions can only be compiled if all query fields have a column.
+ * Usage:
+ * <pre>{@code
+ *     private static final QueryFilters<Event> EVENT_FILTERS = QueryFilters.<Event>builder()
+ *       .field("eventCreatedDateTime", "eventCreatedDateTime", OffsetDateTime::parse)
+ *       .field("carrierBookingReference", "booking.carrierBookingReference", Function.identity(), ComparisonType.EQ)
+ *       .build();
+ *
+ *     @GetMapping
+ *     public List<Event> getEvents(@RequestParam Map<String, String> queryParams) {
+ *       return eventRepository.findAll(EVENT_FILTERS.toSpecification(queryParams));
+ *     }
+ * }</pre>
+ * Query parameters that are not in the registry (e.g. "limit" or "sort") are ignored.</p>
+ *
+ * @param <E> The entity type.
+ */
+public class QueryFilters<E> {
+  /**
+   * A query field.
+   *
+   * @param name the basename of the query parameter
+   * @param path the path of the entity attribute, e.g. "booking.carrierBookingReference"
+   * @param column the column (or SQL expression) for SQL conditions, or null if the field is only used in
+   *  specifications
+   * @param valueParser translates the query parameter value into the value to compare with or throws an exception
+   * @param comparisonTypes the allowed comparison types
+   */
+  public record QueryField(
+    String name,
+    String path,
+    String column,
+    Function<String, ?> valueParser,
+    Set<ComparisonType> comparisonTypes
+  ) {}
+
+  /**
+   * A query parameter parsed with its query field.
+   */
+  public record QueryFilter(QueryField field, ComparisonType comparisonType, Object value) {}
+
+  /**
+   * A SQL condition with positional ("?") parameters, e.g. for the args of a JdbcTemplate query.
+   *
+   * <p>Enum values are bound by name as {@link Types#OTHER} (a {@link SqlParameterValue}), so PostgreSQL infers the
+   * type of the parameter from the column and they can be compared with both enum and text columns.</p>
+   */
+  public record SqlWhere(String sql, List<Object> parameters) {}
+
+  private record CompiledField(QueryField field, String[] pathParts) {}
+
+  private static final Map<ComparisonType, String> SQL_OPERATORS = Map.of(
+    ComparisonType.GT, " > ?",
+    ComparisonType.GTE, " >= ?",
+    ComparisonType.EQ, " = ?",
+    ComparisonType.LTE, " <= ?",
+    ComparisonType.LT, " < ?"
+  );
+
+  private final Map<String, CompiledField> fields;
+  private final List<String> fieldsWithoutColumn;
+
+  private QueryFilters(List<QueryField> fields) {
+    Map<String, CompiledField> compiled = new HashMap<>();
+    for (QueryField field : fields) {
+      if (compiled.put(field.name(), new CompiledField(field, field.path().split("\\."))) != null) {
+        throw new IllegalArgumentException("Duplicate query field " + field.name());
+      }
+    }
+    this.fields = Map.copyOf(compiled);
+    this.fieldsWithoutColumn = fields.stream().filter(field -> field.column() == null).map(QueryField::name).toList();
+  }
+
+  public static <E> Builder<E> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Parses the query parameters of the registered query fields (in one pass over the query parameters).
+   *
+   * @throws ConcreteRequestErrorMessageException If a comparison type is unknown or not allowed for the field or a
+   *  value cannot be parsed.
+   */
+  public List<QueryFilter> parse(Map<String, String> allQueryParameters) {
+    List<QueryFilter> filters = new ArrayList<>();
+    for (Map.Entry<String, String> entry : allQueryParameters.entrySet()) {
+      QueryFilter filter = parse(entry.getKey(), entry.getValue());
+      if (filter != null) {
+        filters.add(filter);
+      }
+    }
+    return filters;
+  }
+
+  /**
+   * A specification matching the entities that satisfy all the query parameters of the registered query fields.
+   */
+  public Specification<E> toSpecification(Map<String, String> allQueryParameters) {
+    List<QueryFilter> filters = parse(allQueryParameters);
+    return (root, query, cb) -> {
+      if (filters.isEmpty()) {
+        return cb.conjunction();
+      }
+      Predicate[] predicates = new Predicate[filters.size()];
+      for (int i = 0; i < predicates.length; i++) {
+        predicates[i] = predicate(root, cb, filters.get(i));
+      }
+      return cb.and(predicates);
+    };
+  }
+
+  /**
+   * A SQL condition (to use in a "where" clause) satisfied by the rows that satisfy all the query parameters of the
+   * registered query fields, or "1 = 1" if there are none.
+   *
+   * @throws IllegalStateException If a query field has no column (whether or not it is in the query parameters).
+   */
+  public SqlWhere toSqlWhere(Map<String, String> allQueryParameters) {
+    if (!fieldsWithoutColumn.isEmpty()) {
+      throw new IllegalStateException("Query fields without a column cannot be used in SQL: " + fieldsWithoutColumn);
+    }
+    List<QueryFilter> filters = parse(allQueryParameters);
+    if (filters.isEmpty()) {
+      return new SqlWhere("1 = 1", List.of());
+    }
+    StringBuilder sql = new StringBuilder();
+    List<Object> parameters = new ArrayList<>(filters.size());
+    for (QueryFilter filter : filters) {
+      if (!sql.isEmpty()) {
+        sql.append(" and ");
+      }
+      sql.append(filter.field().column()).append(SQL_OPERATORS.get(filter.comparisonType()));
+      parameters.add(filter.value() instanceof Enum<?> e ? new SqlParameterValue(Types.OTHER, e.name()) : filter.value());
+    }
+    return new SqlWhere(sql.toString(), Collections.unmodifiableList(parameters));
+  }
+
+  private QueryFilter parse(String fullName, String rawValue) {
+    int colon = fullName.indexOf(':');
+    CompiledField compiled = fields.get(colon < 0 ? fullName : fullName.substring(0, colon));
+    if (compiled == null) {
+      return null;
+    }
+    QueryField field = compiled.field();
+    ParsedQueryParameter<?> parsed = DCSAQueryParameterParser.parse(fullName, colon < 0 ? fullName.length() : colon,
+      field.name(), rawValue, field.valueParser());
+    if (!field.comparisonTypes().contains(parsed.comparisonType())) {
+      throw ConcreteRequestErrorMessageException.invalidQuery(fullName, "Unsupported attribute / operator for "
+        + field.name() + ": " + parsed.comparisonType().name().toLowerCase(Locale.ROOT));
+    }
+    return new QueryFilter(field, parsed.comparisonType(), parsed.value());
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Predicate predicate(Root<E> root, CriteriaBuilder cb, QueryFilter filter) {
+    Path<?> path = root;
+    for (String part : fields.get(filter.field().name()).pathParts()) {
+      path = path.get(part);
+    }
+    Path<Comparable> comparablePath = (Path<Comparable>) path;
+    Comparable value = (Comparable) filter.value();
+    return switch (filter.comparisonType()) {
+      case GT -> cb.greaterThan(comparablePath, value);
+      case GTE -> cb.greaterThanOrEqualTo(comparablePath, value);
+      case EQ -> cb.equal(path, filter.value());
+      case LTE -> cb.lessThanOrEqualTo(comparablePath, value);
+      case LT -> cb.lessThan(comparablePath, value);
+    };
+  }
+
+  public static class Builder<E> {
+    private final List<QueryField> fields = new ArrayList<>();
+
+    private Builder() {}
+
+    /**
+     * Adds a query field without a column allowing all comparison types (or the given comparison types), for use in
+     * specifications only.
+     */
+    public Builder<E> field(String name, String path, Function<String, ?> valueParser, ComparisonType... comparisonTypes) {
+      return field(name, path, null, valueParser, comparisonTypes);
+    }
+
+    /**
+     * Adds a query field allowing all comparison types (or the given comparison types).
+     */
+    public Builder<E> field(String name, String path, String column, Function<String, ?> valueParser, ComparisonType... comparisonTypes) {
+      Set<ComparisonType> allowed = comparisonTypes.length == 0
+        ? EnumSet.allOf(ComparisonType.class)
+        : EnumSet.copyOf(Arrays.asList(comparisonTypes));
+      fields.add(new QueryField(name, path, column, valueParser, Collections.unmodifiableSet(allowed)));
+      return this;
+    }
+
+    public QueryFilters<E> build() {
+      return new QueryFilters<>(fields);
+    }
+  }
+}
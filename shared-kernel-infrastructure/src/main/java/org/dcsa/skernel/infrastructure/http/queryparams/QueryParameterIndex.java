@@ -0,0 +1,92 @@
+package org.dcsa.skernel.infrastructure.http.queryparams;
+
+import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The query parameters of a request indexed by basename (the part before the first ':'), see
+ * {@link DCSAQueryParameterParser#index(Map)}.
+ *
+ * <p>The parse methods behave as those of {@link DCSAQueryParameterParser}, but only look at the query parameters
+ * with the basename.</p>
+ */
+public class QueryParameterIndex {
+  private record RawParameter(String fullName, int basenameEnd, String value) {}
+
+  private final Map<String, List<RawParameter>> byBasename;
+
+  QueryParameterIndex(Map<String, String> allQueryParameters) {
+    byBasename = new HashMap<>(Math.max(16, allQueryParameters.size() * 2));
+    for (Map.Entry<String, String> entry : allQueryParameters.entrySet()) {
+      String fullName = entry.getKey();
+      int colon = fullName.indexOf(':');
+      int basenameEnd = colon < 0 ? fullName.length() : colon;
+      byBasename.computeIfAbsent(fullName.substring(0, basenameEnd), k -> new ArrayList<>(1))
+        .add(new RawParameter(fullName, basenameEnd, entry.getValue()));
+    }
+  }
+
+  /**
+   * The basenames of the query parameters.
+   */
+  public Set<String> basenames() {
+    return byBasename.keySet();
+  }
+
+  public boolean contains(String basename) {
+    return byBasename.containsKey(basename);
+  }
+
+  /**
+   * As {@link DCSAQueryParameterParser#parseCustomQueryParameter(Map, String, Function)}.
+   */
+  public <T> List<ParsedQueryParameter<T>> parse(String basename, Function<String, T> valueParser) {
+    List<RawParameter> parameters = byBasename.get(basename);
+    if (parameters == null) {
+      return List.of();
+    }
+    List<ParsedQueryParameter<T>> result = new ArrayList<>(parameters.size());
+    for (RawParameter parameter : parameters) {
+      result.add(DCSAQueryParameterParser.parse(parameter.fullName(), parameter.basenameEnd(), basename, parameter.value(), valueParser));
+    }
+    return result;
+  }
+
+  /**
+   * As {@link DCSAQueryParameterParser#parseCustomQueryParameterAtMostOnce(Map, String, Function)}.
+   */
+  public <T> Optional<ParsedQueryParameter<T>> parseAtMostOnce(String basename, Function<String, T> valueParser) {
+    List<RawParameter> parameters = byBasename.get(basename);
+    if (parameters == null) {
+      return Optional.empty();
+    }
+    if (parameters.size() > 1) {
+      throw DCSAQueryParameterParser.usedMoreThanOnce(basename);
+    }
+    RawParameter parameter = parameters.get(0);
+    return Optional.of(DCSAQueryParameterParser.parse(parameter.fullName(), parameter.basenameEnd(), basename, parameter.value(), valueParser));
+  }
+
+  /**
+   * Parses the query parameters of several basenames with the same value type.
+   *
+   * @return The (possibly empty) list of parsed query parameters for each of the basenames (in their order).
+   * @throws ConcreteRequestErrorMessageException As {@link #parse(String, Function)}.
+   */
+  public <T> Map<String, List<ParsedQueryParameter<T>>> parse(Collection<String> basenames, Function<String, T> valueParser) {
+    Map<String, List<ParsedQueryParameter<T>>> result = new LinkedHashMap<>();
+    for (String basename : basenames) {
+      result.put(basename, parse(basename, valueParser));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,91 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the number of elements matching a filter for a while, so paging through a result does not count it on
+ * every request.
+ *
+ * <p>The filter is identified by a key, e.g. a record or list of the filter parameters (anything with a suitable
+ * equals and hashCode). Usage:
+ * <code><pre>
+ *    private final CountCache countCache = new CountCache(Duration.ofMinutes(5), 1000);
+ *    ...
+ *      .withTotalElements(countCache.count(List.of(carrierBookingReference, status), () -> repository.count(spec)))
+ *      .paginateSlice(pageRequest -> ...);
+ * </pre></code>
+ * </p>
+ *
+ * <p>When the cache is full the expired counts are removed first and then the least recently used count.</p>
+ */
+public class CountCache {
+  private record Entry(long count, long expiresAtNanos) {}
+
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final LongSupplier nanoTime;
+  private final Map<Object, Entry> entries;
+
+  /**
+   * @param ttl how long a count is reused
+   * @param maxEntries the maximum number of filters to remember counts for
+   */
+  public CountCache(Duration ttl, int maxEntries) {
+    this(ttl, maxEntries, System::nanoTime);
+  }
+
+  CountCache(Duration ttl, int maxEntries, LongSupplier nanoTime) {
+    this.ttlNanos = ttl.toNanos();
+    this.maxEntries = maxEntries;
+    this.nanoTime = nanoTime;
+    this.entries = lruCache(maxEntries);
+  }
+
+  /**
+   * A supplier returning the cached count for the filter, calling count when there is none or it has expired.
+   * The count is only computed when the supplier is called.
+   */
+  public LongSupplier count(Object filterKey, LongSupplier count) {
+    return () -> {
+      long now = nanoTime.getAsLong();
+      Entry entry = entries.get(filterKey);
+      if (entry != null && now - entry.expiresAtNanos() < 0) {
+        return entry.count();
+      }
+      long value = count.getAsLong();
+      synchronized (entries) {
+        if (entries.size() >= maxEntries) {
+          removeExpired(now);
+        }
+        // The least recently used count is evicted if the cache is still full
+        entries.put(filterKey, new Entry(value, now + ttlNanos));
+      }
+      return value;
+    };
+  }
+
+  /**
+   * Forgets all counts, e.g. after a change that makes them too far off.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  private void removeExpired(long now) {
+    entries.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+  }
+
+  private static Map<Object, Entry> lruCache(int maxEntries) {
+    Map<Object, Entry> cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+    return Collections.synchronizedMap(cache);
+  }
+}
@@ -0,0 +1,228 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
+import org.dcsa.skernel.infrastructure.sorting.Sorter.SortableFields;
+import org.springframework.data.domain.Sort;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of a {@link Cursor} for {@link Paginator}.
+ *
+ * <p>The format is a version byte, a flags byte and varints for the page, page size and number of sort fields
+ * followed by a varint per sort field holding the index of the field in the field table and the direction. A field
+ * that is not in the table is written inline by name. If the codec has a key, the cursor ends with a truncated
+ * HMAC-SHA256 of the preceding bytes, and cursors without a valid signature are rejected. The result is encoded
+ * as url-safe Base64 without padding.</p>
+ *
+ * <p>The field table must be the same where cursors are created and where they are read, so only append fields to
+ * it (a table created from {@link SortableFields} is sorted by name, so adding a field may invalidate existing
+ * cursors).</p>
+ */
+public class CursorCodec {
+  static final byte VERSION = 1;
+  private static final int FLAG_SIGNED = 1;
+  private static final int SIGNATURE_LENGTH = 16;
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+  private final List<String> fields;
+  private final Map<String, Integer> fieldIndexes;
+  private final byte[] key;
+  private final ThreadLocal<Mac> mac;
+
+  private CursorCodec(List<String> fields, byte[] key) {
+    this.fields = List.copyOf(fields);
+    this.fieldIndexes = new HashMap<>();
+    for (int i = 0; i < this.fields.size(); i++) {
+      fieldIndexes.putIfAbsent(this.fields.get(i), i);
+    }
+    this.key = key;
+    this.mac = key == null ? null : ThreadLocal.withInitial(() -> {
+      try {
+        Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+        instance.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+        return instance;
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("Cannot create " + HMAC_ALGORITHM, e);
+      }
+    });
+  }
+
+  /**
+   * A codec with the given field table (the database entity fields of the sort).
+   */
+  public static CursorCodec of(String... fields) {
+    return new CursorCodec(Arrays.asList(fields), null);
+  }
+
+  /**
+   * A codec with the fields of the sortable fields as field table.
+   */
+  public static CursorCodec of(SortableFields sortableFields) {
+    return new CursorCodec(sortableFields.databaseFields(), null);
+  }
+
+  /**
+   * A codec with the same field table that signs the cursors with the given key.
+   */
+  public CursorCodec signedWith(byte[] key) {
+    if (key == null || key.length == 0) {
+      throw new IllegalArgumentException("The key must not be empty");
+    }
+    return new CursorCodec(fields, key.clone());
+  }
+
+  public String encode(Cursor cursor) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(16 + 2 * cursor.getSortBy().size());
+    out.write(VERSION);
+    out.write(key != null ? FLAG_SIGNED : 0);
+    writeVarint(out, cursor.getPage());
+    writeVarint(out, cursor.getPageSize());
+    writeVarint(out, cursor.getSortBy().size());
+    for (Cursor.SortBy sortBy : cursor.getSortBy()) {
+      int direction = sortBy.direction() == Sort.Direction.DESC ? 1 : 0;
+      Integer index = fieldIndexes.get(sortBy.field());
+      if (index != null) {
+        writeVarint(out, ((index + 1) << 1) | direction);
+      } else {
+        byte[] name = sortBy.field().getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, direction);
+        writeVarint(out, name.length);
+        out.writeBytes(name);
+      }
+    }
+    if (key != null) {
+      out.write(sign(out.toByteArray(), out.size()), 0, SIGNATURE_LENGTH);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+  }
+
+  /**
+   * Decodes a cursor created by {@link #encode(Cursor)}.
+   *
+   * @throws ConcreteRequestErrorMessageException if the cursor is invalid or its signature does not match
+   */
+  public Cursor decode(String cursor) {
+    try {
+      byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+      if (bytes.length < 2 || bytes[0] != VERSION) {
+        throw invalidCursor(null);
+      }
+      boolean signed = (bytes[1] & FLAG_SIGNED) != 0;
+      int length = bytes.length;
+      if (key != null) {
+        length -= SIGNATURE_LENGTH;
+        if (!signed || length < 2
+          || !MessageDigest.isEqual(Arrays.copyOfRange(bytes, length, bytes.length), Arrays.copyOf(sign(bytes, length), SIGNATURE_LENGTH))) {
+          throw invalidCursor(null);
+        }
+      } else if (signed) {
+        throw invalidCursor(null);
+      }
+
+      Reader reader = new Reader(bytes, 2, length);
+      int page = reader.varint();
+      int pageSize = reader.varint();
+      int count = reader.varint();
+      List<Cursor.SortBy> sortBy = new ArrayList<>(Math.min(count, length));
+      for (int i = 0; i < count; i++) {
+        int value = reader.varint();
+        Sort.Direction direction = (value & 1) != 0 ? Sort.Direction.DESC : Sort.Direction.ASC;
+        int index = (value >>> 1) - 1;
+        String field = index < 0 ? reader.string() : fields.get(index);
+        sortBy.add(new Cursor.SortBy(direction, field));
+      }
+      if (reader.position != length) {
+        throw invalidCursor(null);
+      }
+      return new Cursor(page, pageSize, sortBy);
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw invalidCursor(e);
+    }
+  }
+
+  /**
+   * Whether the cursor is a JSON cursor (as created by {@link Paginator} without a codec) that should be read as
+   * such, which is never the case for a codec that signs its cursors.
+   */
+  boolean isJson(String cursor) {
+    // Base64 of '{' followed by '"'
+    return key == null && cursor.startsWith("ey");
+  }
+
+  private byte[] sign(byte[] bytes, int length) {
+    Mac instance = mac.get();
+    instance.update(bytes, 0, length);
+    return instance.doFinal();
+  }
+
+  private static ConcreteRequestErrorMessageException invalidCursor(Throwable cause) {
+    return ConcreteRequestErrorMessageException.invalidQuery("cursor", "Invalid cursor", cause);
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Cannot encode negative value " + value);
+    }
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static class Reader {
+    private final byte[] bytes;
+    private final int end;
+    private int position;
+
+    Reader(byte[] bytes, int position, int end) {
+      this.bytes = bytes;
+      this.position = position;
+      this.end = end;
+    }
+
+    int varint() {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        byte b = next();
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          if (value < 0) {
+            throw new IllegalArgumentException("Varint out of range");
+          }
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Varint too long");
+    }
+
+    String string() {
+      int length = varint();
+      if (length > end - position) {
+        throw new IllegalArgumentException("String too long");
+      }
+      String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+
+    private byte next() {
+      if (position >= end) {
+        throw new IllegalArgumentException("Unexpected end of cursor");
+      }
+      return bytes[position++];
+    }
+  }
+}
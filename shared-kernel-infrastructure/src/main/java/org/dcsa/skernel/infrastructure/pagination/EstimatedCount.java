@@ -0,0 +1,36 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Estimated row counts from the PostgreSQL statistics, for use with
+ * {@link Pagination.DoPaginate#withTotalElements(LongSupplier)}.
+ *
+ * <p>The estimate is maintained by (auto) vacuum and analyze, so it costs nothing to look up but may be off after
+ * large changes to the table. It is the number of rows in the table and therefore only suitable for unfiltered
+ * results, use a {@link CountCache} for filtered results.</p>
+ */
+@UtilityClass
+public class EstimatedCount {
+  /**
+   * The estimated number of rows in the table (the "reltuples" of the table in "pg_class"), or -1 if the table
+   * has never been analyzed or the estimate cannot be read.
+   *
+   * @param table the table name, optionally qualified with the schema
+   */
+  public static LongSupplier ofTable(JdbcTemplate jdbcTemplate, String table) {
+    return () -> {
+      try {
+        Long estimate = jdbcTemplate.queryForObject(
+          "select reltuples::bigint from pg_class where oid = to_regclass(?)", Long.class, table);
+        return estimate != null && estimate >= 0 ? estimate : -1;
+      } catch (DataAccessException e) {
+        return -1;
+      }
+    };
+  }
+}
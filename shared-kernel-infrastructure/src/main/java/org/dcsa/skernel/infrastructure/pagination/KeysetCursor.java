@@ -0,0 +1,170 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The position in a keyset paginated result: the values of the sort keys of a row and whether the page starts
+ * after the row (paging forward) or ends before it (paging backward).
+ *
+ * <p>A backward cursor without values points at the last page. The cursor is encoded as an opaque url-safe string
+ * that records the sort it was created for, so it is rejected if the sort has changed.</p>
+ *
+ * <p>Supported sort key types are String, Short, Integer, Long, Float, Double, BigInteger, BigDecimal, Boolean, UUID,
+ * enums (which are decoded as their name), LocalDate, LocalTime, LocalDateTime, OffsetDateTime, ZonedDateTime and
+ * Instant. Sort keys may be null, see {@link KeysetPageRequest} for how null keys are ordered.</p>
+ */
+public record KeysetCursor(boolean backward, List<Object> values) {
+  private static final char VERSION = '1';
+  private static final char FORWARD = 'n';
+  private static final char BACKWARD = 'p';
+  private static final char NULL = 'N';
+
+  /**
+   * The cursor of the last page.
+   */
+  public static final KeysetCursor LAST = new KeysetCursor(true, List.of());
+
+  public KeysetCursor {
+    values = Collections.unmodifiableList(new ArrayList<>(values));
+  }
+
+  public static KeysetCursor after(List<Object> values) {
+    return new KeysetCursor(false, values);
+  }
+
+  public static KeysetCursor before(List<Object> values) {
+    return new KeysetCursor(true, values);
+  }
+
+  /**
+   * Encodes the cursor for the given sort.
+   */
+  public String encode(List<Sort.Order> sort) {
+    StringBuilder sb = new StringBuilder()
+      .append(VERSION)
+      .append(backward ? BACKWARD : FORWARD)
+      .append(Integer.toHexString(sortFingerprint(sort)))
+      .append('|');
+    for (Object value : values) {
+      if (value == null) {
+        sb.append(NULL);
+        continue;
+      }
+      char type = typeOf(value);
+      String text = value instanceof Enum<?> e ? e.name() : value.toString();
+      sb.append(type).append(text.length()).append(':').append(text);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor created for the given sort.
+   *
+   * @throws ConcreteRequestErrorMessageException if the cursor is invalid or was created for another sort
+   */
+  public static KeysetCursor decode(String cursor, String parameterName, List<Sort.Order> sort) {
+    try {
+      String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int fingerprintEnd = text.indexOf('|');
+      if (text.length() < 3 || text.charAt(0) != VERSION || fingerprintEnd < 0
+        || (text.charAt(1) != FORWARD && text.charAt(1) != BACKWARD)) {
+        throw invalid(parameterName, null);
+      }
+      if (Integer.parseUnsignedInt(text.substring(2, fingerprintEnd), 16) != sortFingerprint(sort)) {
+        throw ConcreteRequestErrorMessageException.invalidQuery(parameterName, "The cursor does not match the sort");
+      }
+      List<Object> values = new ArrayList<>(sort.size());
+      int i = fingerprintEnd + 1;
+      while (i < text.length()) {
+        char type = text.charAt(i++);
+        if (type == NULL) {
+          values.add(null);
+          continue;
+        }
+        int lengthEnd = text.indexOf(':', i);
+        int length = Integer.parseInt(text.substring(i, lengthEnd));
+        values.add(parseValue(type, text.substring(lengthEnd + 1, lengthEnd + 1 + length)));
+        i = lengthEnd + 1 + length;
+      }
+      boolean backward = text.charAt(1) == BACKWARD;
+      if (values.size() != sort.size() && !(backward && values.isEmpty())) {
+        throw invalid(parameterName, null);
+      }
+      return new KeysetCursor(backward, values);
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | java.time.DateTimeException e) {
+      throw invalid(parameterName, e);
+    }
+  }
+
+  private static ConcreteRequestErrorMessageException invalid(String parameterName, Throwable cause) {
+    return ConcreteRequestErrorMessageException.invalidQuery(parameterName, "Invalid cursor", cause);
+  }
+
+  static int sortFingerprint(List<Sort.Order> sort) {
+    int hash = 1;
+    for (Sort.Order order : sort) {
+      hash = 31 * hash + order.getProperty().hashCode();
+      hash = 31 * hash + (order.isAscending() ? 1 : 2);
+    }
+    return hash;
+  }
+
+  private static char typeOf(Object value) {
+    if (value instanceof String) return 's';
+    if (value instanceof Short) return 'h';
+    if (value instanceof Integer) return 'i';
+    if (value instanceof Long) return 'l';
+    if (value instanceof Float) return 'g';
+    if (value instanceof Double) return 'f';
+    if (value instanceof BigInteger) return 'B';
+    if (value instanceof BigDecimal) return 'd';
+    if (value instanceof Boolean) return 'b';
+    if (value instanceof UUID) return 'u';
+    if (value instanceof Enum<?>) return 'e';
+    if (value instanceof LocalDate) return 'D';
+    if (value instanceof LocalTime) return 't';
+    if (value instanceof LocalDateTime) return 'T';
+    if (value instanceof OffsetDateTime) return 'O';
+    if (value instanceof ZonedDateTime) return 'Z';
+    if (value instanceof Instant) return 'I';
+    throw new IllegalArgumentException("Unsupported sort key type: " + value.getClass().getName());
+  }
+
+  private static Object parseValue(char type, String text) {
+    return switch (type) {
+      case 's', 'e' -> text;
+      case 'h' -> Short.valueOf(text);
+      case 'i' -> Integer.valueOf(text);
+      case 'l' -> Long.valueOf(text);
+      case 'g' -> Float.valueOf(text);
+      case 'f' -> Double.valueOf(text);
+      case 'B' -> new BigInteger(text);
+      case 'd' -> new BigDecimal(text);
+      case 'b' -> Boolean.valueOf(text);
+      case 'u' -> UUID.fromString(text);
+      case 'D' -> LocalDate.parse(text);
+      case 't' -> LocalTime.parse(text);
+      case 'T' -> LocalDateTime.parse(text);
+      case 'O' -> OffsetDateTime.parse(text);
+      case 'Z' -> ZonedDateTime.parse(text);
+      case 'I' -> Instant.parse(text);
+      default -> throw new IllegalArgumentException("Unknown type " + type);
+    };
+  }
+}
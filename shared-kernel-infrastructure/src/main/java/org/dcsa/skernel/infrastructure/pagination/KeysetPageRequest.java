@@ -0,0 +1,244 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A request for a page of a keyset (seek) paginated result.
+ *
+ * <p>Rather than skipping rows with an offset, the query only selects the rows after (or, paging backward, before)
+ * the sort key values in the cursor and limits the result to {@link #limit()} rows (one more than the page size, so
+ * the paginator can tell whether there are more rows without counting them). The query must be sorted by
+ * {@link #sort()}, which is reversed when paging backward; the paginator puts the rows back in order.</p>
+ *
+ * <p>For JPA use {@link #toSpecification()} together with {@link #toPageable()}, for JDBC use
+ * {@link #toSqlPredicate(Function)} and {@link #toSqlOrderBy(Function)} and limit the query to {@link #limit()}
+ * rows.</p>
+ *
+ * <p>Sort keys may be null. Null sorts after all other values when ascending and before them when descending, as
+ * PostgreSQL sorts nulls by default; {@link #sort()} and {@link #toSqlOrderBy(Function)} request this explicitly and
+ * the predicates select the rows with null keys accordingly.</p>
+ *
+ * @param requestedSort the sort of the result (which must end with a unique key to give a stable order)
+ * @param cursor the position to continue from or null for the first page
+ * @param pageSize the number of rows in a page
+ */
+public record KeysetPageRequest(
+  List<Sort.Order> requestedSort,
+  KeysetCursor cursor,
+  int pageSize
+) {
+  /**
+   * A predicate with positional ("?") parameters.
+   */
+  public record SqlPredicate(String sql, List<Object> parameters) {}
+
+  public boolean isBackward() {
+    return cursor != null && cursor.backward();
+  }
+
+  /**
+   * The number of rows to fetch.
+   */
+  public int limit() {
+    return pageSize + 1;
+  }
+
+  /**
+   * The sort to query with (reversed when paging backward), with nulls last when ascending and first when descending.
+   */
+  public Sort sort() {
+    return Sort.by(effectiveOrders());
+  }
+
+  /**
+   * A page request for the first {@link #limit()} rows (there is never an offset).
+   */
+  public Pageable toPageable() {
+    return PageRequest.of(0, limit(), sort());
+  }
+
+  /**
+   * A specification selecting the rows after (before) the cursor, it matches all rows if there is no cursor.
+   */
+  public <E> Specification<E> toSpecification() {
+    return (root, query, cb) -> {
+      if (!hasValues()) {
+        return cb.conjunction();
+      }
+      List<Sort.Order> orders = effectiveOrders();
+      List<Predicate> alternatives = new ArrayList<>(orders.size());
+      for (int i = 0; i < orders.size(); i++) {
+        Path<?> path = path(root, orders.get(i).getProperty());
+        Predicate after = after(cb, path, i, orders.get(i).isAscending());
+        if (after == null) {
+          // Nothing sorts after null ascending, so there is no row that differs first in this key
+          continue;
+        }
+        List<Predicate> conjunction = new ArrayList<>(i + 1);
+        for (int j = 0; j < i; j++) {
+          Path<?> previousPath = path(root, orders.get(j).getProperty());
+          conjunction.add(cursor.values().get(j) == null ? cb.isNull(previousPath) : cb.equal(previousPath, value(previousPath, j)));
+        }
+        conjunction.add(after);
+        alternatives.add(cb.and(conjunction.toArray(Predicate[]::new)));
+      }
+      return alternatives.isEmpty() ? cb.disjunction() : cb.or(alternatives.toArray(Predicate[]::new));
+    };
+  }
+
+  /**
+   * A SQL predicate selecting the rows after (before) the cursor. A row value comparison, e.g.
+   * {@code (a, b) > (?, ?)}, is used when all keys are sorted in the same direction and the cursor has no null keys
+   * (when ascending together with the rows that have a null key after the keys they share with the cursor), and an
+   * equivalent expanded comparison otherwise.
+   *
+   * @param columns maps the sort properties to column names
+   */
+  public SqlPredicate toSqlPredicate(Function<String, String> columns) {
+    if (!hasValues()) {
+      return new SqlPredicate("1 = 1", List.of());
+    }
+    List<Sort.Order> orders = effectiveOrders();
+    List<Object> values = cursor.values();
+    boolean uniform = orders.stream().allMatch(o -> o.isAscending() == orders.get(0).isAscending());
+    List<String> alternatives = new ArrayList<>(orders.size());
+    List<Object> parameters = new ArrayList<>();
+    if (uniform && !values.contains(null)) {
+      boolean ascending = orders.get(0).isAscending();
+      String operator = ascending ? " > " : " < ";
+      String rowValue = orders.size() == 1
+        ? columns.apply(orders.get(0).getProperty()) + operator + "?"
+        : "(" + orders.stream().map(o -> columns.apply(o.getProperty())).collect(Collectors.joining(", ")) + ")"
+          + operator + "(" + orders.stream().map(o -> "?").collect(Collectors.joining(", ")) + ")";
+      values.forEach(value -> parameters.add(sqlValue(value)));
+      if (!ascending) {
+        // Null keys sort before the cursor, the row value comparison is not true for them
+        return new SqlPredicate(rowValue, parameters);
+      }
+      alternatives.add(rowValue);
+      for (int i = 0; i < orders.size(); i++) {
+        StringBuilder alternative = new StringBuilder("(");
+        appendEquals(alternative, columns, orders, values, i, parameters);
+        alternatives.add(alternative.append(columns.apply(orders.get(i).getProperty())).append(" is null)").toString());
+      }
+    } else {
+      for (int i = 0; i < orders.size(); i++) {
+        String column = columns.apply(orders.get(i).getProperty());
+        Object value = values.get(i);
+        boolean ascending = orders.get(i).isAscending();
+        if (ascending && value == null) {
+          // Nothing sorts after null ascending, so there is no row that differs first in this key
+          continue;
+        }
+        StringBuilder alternative = new StringBuilder("(");
+        appendEquals(alternative, columns, orders, values, i, parameters);
+        if (value == null) {
+          alternative.append(column).append(" is not null");
+        } else if (ascending) {
+          // Null keys sort after the cursor key
+          String comparison = column + " > ? or " + column + " is null";
+          alternative.append(i == 0 ? comparison : "(" + comparison + ")");
+          parameters.add(sqlValue(value));
+        } else {
+          alternative.append(column).append(" < ?");
+          parameters.add(sqlValue(value));
+        }
+        alternatives.add(alternative.append(')').toString());
+      }
+    }
+    if (alternatives.isEmpty()) {
+      return new SqlPredicate("1 = 0", List.of());
+    }
+    String sql = alternatives.size() == 1 ? alternatives.get(0) : "(" + String.join(" or ", alternatives) + ")";
+    return new SqlPredicate(sql, parameters);
+  }
+
+  /**
+   * Appends the conditions that the keys before the index are equal to those of the cursor.
+   */
+  private static void appendEquals(StringBuilder sql, Function<String, String> columns, List<Sort.Order> orders,
+                                   List<Object> values, int index, List<Object> parameters) {
+    for (int j = 0; j < index; j++) {
+      sql.append(columns.apply(orders.get(j).getProperty()));
+      if (values.get(j) == null) {
+        sql.append(" is null and ");
+      } else {
+        sql.append(" = ? and ");
+        parameters.add(sqlValue(values.get(j)));
+      }
+    }
+  }
+
+  /**
+   * The "order by" list (without "order by") to query with.
+   *
+   * @param columns maps the sort properties to column names
+   */
+  public String toSqlOrderBy(Function<String, String> columns) {
+    return effectiveOrders().stream()
+      .map(o -> columns.apply(o.getProperty()) + (o.isAscending() ? " asc nulls last" : " desc nulls first"))
+      .collect(Collectors.joining(", "));
+  }
+
+  private boolean hasValues() {
+    return cursor != null && !cursor.values().isEmpty();
+  }
+
+  private List<Sort.Order> effectiveOrders() {
+    return requestedSort.stream()
+      .map(o -> isBackward() ? o.with(o.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC) : o)
+      .map(o -> o.isAscending() ? o.nullsLast() : o.nullsFirst())
+      .toList();
+  }
+
+  private static Path<?> path(Root<?> root, String property) {
+    Path<?> path = root;
+    for (String part : property.split("\\.")) {
+      path = path.get(part);
+    }
+    return path;
+  }
+
+  /**
+   * The cursor value converted to the type of the path (enums are kept as their name in the cursor).
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Comparable<Object> value(Path<?> path, int index) {
+    Object value = cursor.values().get(index);
+    Class<?> javaType = path.getJavaType();
+    if (value instanceof String name && javaType != null && javaType.isEnum()) {
+      value = Enum.valueOf((Class<? extends Enum>) javaType, name);
+    }
+    return (Comparable<Object>) value;
+  }
+
+  /**
+   * The predicate that the key sorts after the cursor key, or null if no key does.
+   */
+  @SuppressWarnings("unchecked")
+  private Predicate after(CriteriaBuilder cb, Path<?> path, int index, boolean ascending) {
+    Path<Comparable<Object>> comparablePath = (Path<Comparable<Object>>) path;
+    if (cursor.values().get(index) == null) {
+      return ascending ? null : cb.isNotNull(path);
+    }
+    return ascending
+      ? cb.or(cb.greaterThan(comparablePath, value(path, index)), cb.isNull(path))
+      : cb.lessThan(comparablePath, value(path, index));
+  }
+
+  private static Object sqlValue(Object value) {
+    return value instanceof Enum<?> e ? e.name() : value;
+  }
+}
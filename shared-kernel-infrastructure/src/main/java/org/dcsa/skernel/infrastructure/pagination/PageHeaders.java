@@ -0,0 +1,60 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.dcsa.skernel.infrastructure.pagination.Pagination.LinkHeaders;
+
+/**
+ * Writes the pagination links of a response as DCSA headers (Current-Page, First-Page, ...), as a single RFC 8288
+ * "Link" header or both.
+ */
+class PageHeaders {
+  private final HttpServletResponse response;
+  private final LinkHeaders linkHeaders;
+  private final StringBuilder link = new StringBuilder();
+
+  PageHeaders(HttpServletResponse response, LinkHeaders linkHeaders) {
+    this.response = response;
+    this.linkHeaders = linkHeaders;
+  }
+
+  void current(String url) {
+    set("Current-Page", "self", url);
+  }
+
+  void first(String url) {
+    set("First-Page", "first", url);
+  }
+
+  void last(String url) {
+    set("Last-Page", "last", url);
+  }
+
+  void previous(String url) {
+    set("Previous-Page", "prev", url);
+  }
+
+  void next(String url) {
+    set("Next-Page", "next", url);
+  }
+
+  /**
+   * Writes the Link header (if any), call after the links have been set.
+   */
+  void write() {
+    if (!link.isEmpty()) {
+      response.setHeader("Link", link.toString());
+    }
+  }
+
+  private void set(String header, String rel, String url) {
+    if (linkHeaders != LinkHeaders.RFC_8288) {
+      response.setHeader(header, url);
+    }
+    if (linkHeaders != LinkHeaders.DCSA) {
+      if (!link.isEmpty()) {
+        link.append(", ");
+      }
+      link.append('<').append(url).append(">; rel=\"").append(rel).append('"');
+    }
+  }
+}
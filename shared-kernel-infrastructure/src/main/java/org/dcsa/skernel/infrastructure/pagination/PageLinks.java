@@ -0,0 +1,105 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Builds the pagination links of a request.
+ *
+ * <p>The link up to and including the page parameter name (the prefix) and the other request parameters (the
+ * suffix) are built and url encoded once, each link then only appends the page to the prefix and copies the suffix.
+ * Not thread-safe, create one per request.</p>
+ */
+class PageLinks {
+  private final StringBuilder buffer;
+  private final int basePathLength;
+  private final int prefixLength;
+  private final String suffix;
+
+  /**
+   * @param pageName the name of the page parameter (which is excluded from the copied request parameters)
+   */
+  PageLinks(HttpServletRequest request, String pageName) {
+    String suffix = requestParameters(request.getParameterMap(), pageName);
+    String uri = request.getRequestURI();
+    String scheme = request.getScheme();
+    String serverName = request.getServerName();
+    buffer = new StringBuilder(scheme.length() + serverName.length() + uri.length() + pageName.length()
+      + suffix.length() + 48);
+    buffer.append(scheme).append("://").append(serverName).append(':').append(request.getServerPort()).append(uri);
+    basePathLength = buffer.length();
+    buffer.append('?').append(pageName).append('=');
+    prefixLength = buffer.length();
+    this.suffix = suffix;
+  }
+
+  /**
+   * The link to the given page.
+   */
+  String link(int page) {
+    buffer.setLength(prefixLength);
+    return buffer.append(page).append(suffix).toString();
+  }
+
+  /**
+   * The link with the given value of the page parameter.
+   */
+  String link(String page) {
+    buffer.setLength(prefixLength);
+    return buffer.append(page).append(suffix).toString();
+  }
+
+  /**
+   * The link without the page parameter.
+   */
+  String linkWithoutPage() {
+    buffer.setLength(basePathLength);
+    if (!suffix.isEmpty()) {
+      buffer.append('?').append(suffix, 1, suffix.length());
+    }
+    return buffer.toString();
+  }
+
+  private static String requestParameters(Map<String, String[]> parameterMap, String excludedName) {
+    if (parameterMap == null || parameterMap.isEmpty()) {
+      return "";
+    }
+    Charset charset = Charset.defaultCharset();
+    StringBuilder parameters = new StringBuilder();
+
+    parameterMap.forEach((String key, String[] values) -> {
+      if (!excludedName.equals(key)) {
+        String firstValue = (values != null && values.length > 0) ? values[0] : "";
+        parameters.append('&');
+        appendEncoded(parameters, key, charset);
+        parameters.append('=');
+        appendEncoded(parameters, firstValue, charset);
+      }
+    });
+
+    return parameters.toString();
+  }
+
+  /**
+   * Appends the value url encoded (as {@link URLEncoder} does), without encoding values that need no encoding.
+   */
+  static void appendEncoded(StringBuilder sb, String value, Charset charset) {
+    for (int i = 0; i < value.length(); i++) {
+      if (!isUnreserved(value.charAt(i))) {
+        sb.append(URLEncoder.encode(value, charset));
+        return;
+      }
+    }
+    sb.append(value);
+  }
+
+  /**
+   * The characters {@link URLEncoder} leaves as they are.
+   */
+  private static boolean isUnreserved(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+      || c == '-' || c == '_' || c == '.' || c == '*';
+  }
+}
@@ -0,0 +1,115 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.dcsa.skernel.infrastructure.pagination.Pagination.StreamFormat;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes the rows of a stream as a JSON array or as NDJSON as they are read, so neither the rows of the page nor
+ * their JSON are held in memory.
+ *
+ * <p>The pagination headers must be set before the first byte of the page is written, so whether there is a next
+ * page is determined first by reading the first row after the page (a page of a single row at
+ * {@code offset + pageSize}). The rows of the page are then written to the response one by one. Both are read in
+ * the same transaction.</p>
+ */
+class PageStream<T> implements StreamingResponseBody {
+  private final Function<PageRequest, Stream<T>> rows;
+  private final PageRequest pageRequest;
+  private final Consumer<Boolean> headers;
+  private final Consumer<? super T> written;
+  private final ObjectWriter writer;
+  private final StreamFormat format;
+  private final TransactionOperations transactions;
+
+  /**
+   * @param rows opens the stream of rows for a page request (within the transaction, it is closed when read)
+   * @param headers sets the pagination headers given whether there is a row after the page
+   * @param written called with each row after it has been written, e.g. to detach it from the persistence context
+   */
+  PageStream(Function<PageRequest, Stream<T>> rows, PageRequest pageRequest, Consumer<Boolean> headers,
+             Consumer<? super T> written, ObjectMapper objectMapper, StreamFormat format,
+             TransactionOperations transactions) {
+    this.rows = rows;
+    this.pageRequest = pageRequest;
+    this.headers = headers;
+    this.written = written;
+    // Leave flushing to the servlet container's buffer instead of flushing after each row
+    this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.format = format;
+    this.transactions = transactions;
+  }
+
+  @Override
+  public void writeTo(OutputStream outputStream) throws IOException {
+    try {
+      transactions.executeWithoutResult(status -> {
+        headers.accept(hasNext());
+        try (Stream<T> stream = rows.apply(pageRequest)) {
+          write(stream.iterator(), outputStream);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Whether there is a row after the page, which is looked for with a page of a single row.
+   */
+  private boolean hasNext() {
+    long nextOffset = pageRequest.getOffset() + pageRequest.getPageSize();
+    if (nextOffset > Integer.MAX_VALUE) {
+      return false;
+    }
+    try (Stream<T> stream = rows.apply(PageRequest.of((int) nextOffset, 1, pageRequest.getSort()))) {
+      return stream.iterator().hasNext();
+    }
+  }
+
+  /**
+   * Writes (at most) the rows of the page, the rows after the page (if any) are not read.
+   */
+  private void write(Iterator<T> iterator, OutputStream outputStream) throws IOException {
+    int pageSize = pageRequest.getPageSize();
+    try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      int count = 0;
+      if (format == StreamFormat.JSON_ARRAY) {
+        generator.writeStartArray();
+        while (count < pageSize && iterator.hasNext()) {
+          write(generator, iterator.next());
+          count++;
+        }
+        generator.writeEndArray();
+      } else {
+        generator.setRootValueSeparator(null);
+        while (count < pageSize && iterator.hasNext()) {
+          write(generator, iterator.next());
+          generator.writeRaw('\n');
+          count++;
+        }
+      }
+    }
+  }
+
+  private void write(JsonGenerator generator, T row) throws IOException {
+    writer.writeValue(generator, row);
+    written.accept(row);
+  }
+}
@@ -1,18 +1,30 @@
 package org.dcsa.skernel.infrastructure.pagination;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.UtilityClass;
 import org.dcsa.skernel.infrastructure.sorting.Sorter.SortableFields;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.net.URLEncoder;
-import java.nio.charset.Charset;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
 import static org.dcsa.skernel.infrastructure.sorting.Sorter.parseSort;
 
@@ -27,13 +39,73 @@ import static org.dcsa.skernel.infrastructure.sorting.Sorter.parseSort;
  *      .paginate(pageRequest -> service.find(pageRequest, otherSearchParameters, ...));
  * </pre></code>
  * </p>
+ *
+ * <p>To avoid the count query of a {@link org.springframework.data.domain.Page}, use {@link DoPaginate#paginateSlice}
+ * with a repository method returning a {@link Slice} or {@link DoPaginate#paginateLookahead} with a query returning
+ * up to one row more than the page size. The Last-Page header is then only set if a (possibly estimated) total is
+ * given with {@link DoPaginate#withTotalElements}, see {@link CountCache} and {@link EstimatedCount}.
+ * </p>
+ *
+ * <p>Large pages can be streamed with {@link DoPaginate#paginateStream}, which writes the rows of a (JPA) stream as
+ * a JSON array or NDJSON while they are read. The pagination links can be sent as a single RFC 8288 "Link" header
+ * instead of (or as well as) the DCSA headers, see {@link DoPaginate#withLinkHeaders}.
+ * </p>
+ *
+ * <p>Keyset (seek) pagination, which continues after the sort key values of the last row instead of skipping rows
+ * and never counts the rows:
+ * <code><pre>
+ *    return Pagination
+ *      .withKeyset(request, response, cursor, pageSize)
+ *      .sortBy(sort, defaultSort, sortableFields)
+ *      .paginate(pageRequest -> repository.findAll(spec.and(pageRequest.toSpecification()), pageRequest.toPageable()).getContent());
+ * </pre></code>
+ * See {@link KeysetPageRequest} for how to query the page.
+ * </p>
  */
 @UtilityClass
 public class Pagination {
   public static final String DCSA_PAGE_PARAM_NAME = "page";
   public static final String DCSA_PAGESIZE_PARAM_NAME = "limit";
   public static final String DCSA_SORT_PARAM_NAME = "sort";
+  public static final String DCSA_CURSOR_PARAM_NAME = "cursor";
   public static final PagingNames DCSA_PAGING_NAMES = PagingNames.of(DCSA_PAGE_PARAM_NAME);
+  public static final PagingNames DCSA_KEYSET_PAGING_NAMES = PagingNames.of(DCSA_CURSOR_PARAM_NAME);
+
+  /**
+   * How the pagination links are sent.
+   */
+  public enum LinkHeaders {
+    /**
+     * The DCSA headers Current-Page, First-Page, Last-Page, Previous-Page and Next-Page (the default).
+     */
+    DCSA,
+    /**
+     * A single RFC 8288 "Link" header with the relations self, first, last, prev and next.
+     */
+    RFC_8288,
+    /**
+     * Both the DCSA headers and the "Link" header.
+     */
+    BOTH
+  }
+
+  /**
+   * The format of a streamed page.
+   */
+  public enum StreamFormat {
+    JSON_ARRAY(MediaType.APPLICATION_JSON),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    StreamFormat(MediaType mediaType) {
+      this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+      return mediaType;
+    }
+  }
 
   /**
    * Starts pagination using the default parameter naming.
@@ -49,11 +121,74 @@ public class Pagination {
     return new Paginator(request, response, page, pageSize, pagingNames);
   }
 
+  /**
+   * Starts keyset pagination using the default parameter naming.
+   *
+   * @param cursor the cursor from the request (null or empty for the first page)
+   */
+  public static AcceptKeysetSortParameters withKeyset(HttpServletRequest request, HttpServletResponse response, String cursor, int pageSize) {
+    return withKeyset(request, response, cursor, pageSize, DCSA_KEYSET_PAGING_NAMES);
+  }
+
+  /**
+   * Starts keyset pagination using the paging with names you provide (the page name is the name of the cursor).
+   */
+  public static AcceptKeysetSortParameters withKeyset(HttpServletRequest request, HttpServletResponse response, String cursor, int pageSize, PagingNames pagingNames) {
+    // An empty cursor parameter (e.g. "?cursor=") is the first page
+    return new KeysetPaginator(request, response, cursor != null && !cursor.isEmpty() ? cursor : null, pageSize, pagingNames);
+  }
+
   public interface DoPaginate {
     /**
      * Performs pagination on the result provided from the function.
      */
     <T> List<T> paginate(Function<PageRequest, PagedResult<T>> func);
+
+    /**
+     * Sets the Last-Page header from the given number of elements when paginating a slice (it is not used by
+     * {@link #paginate(Function)}). The number may be an estimate, a negative number means it is unknown.
+     */
+    DoPaginate withTotalElements(LongSupplier totalElements);
+
+    /**
+     * Performs pagination on the slice provided from the function without counting the elements. The Next-Page
+     * header is set if the slice has a next slice and the Last-Page header only if
+     * {@link #withTotalElements(LongSupplier)} was used.
+     */
+    <T> List<T> paginateSlice(Function<PageRequest, Slice<T>> func);
+
+    /**
+     * As {@link #paginateSlice(Function)}, for queries that fetch {@code pageRequest.getPageSize() + 1} rows from
+     * {@code pageRequest.getOffset()}. The extra row (if any) only signals that there is a next page and is not
+     * returned.
+     */
+    <T> List<T> paginateLookahead(Function<PageRequest, List<T>> func);
+
+    /**
+     * Sets how the pagination links are sent (the DCSA headers by default).
+     */
+    DoPaginate withLinkHeaders(LinkHeaders linkHeaders);
+
+    /**
+     * <p>Streams the page provided from the function, which is written to the response as a JSON array or as NDJSON
+     * while it is read, e.g. from a repository method returning a {@link Stream} with a fetch size hint
+     * ({@code @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))}).</p>
+     *
+     * <p>As {@link #paginateLookahead(Function)}, the stream must have up to {@code pageRequest.getPageSize() + 1}
+     * rows from {@code pageRequest.getOffset()}. The function is called twice when the response is written (after
+     * the controller has returned), within a transaction from the given transaction operations as JPA streams must
+     * be read within a transaction: first with a page of a single row after the page, to set the pagination headers
+     * before the page is written, then for the page itself. Only the rows of the page are read from the second
+     * stream. The Last-Page header is only set if {@link #withTotalElements(LongSupplier)} was used.</p>
+     */
+    <T> ResponseEntity<StreamingResponseBody> paginateStream(Function<PageRequest, Stream<T>> func, ObjectMapper objectMapper, StreamFormat format, TransactionOperations transactions);
+
+    /**
+     * As {@link #paginateStream(Function, ObjectMapper, StreamFormat, TransactionOperations)}, calling
+     * {@code written} with each row after it has been written. Use it to detach JPA entities (e.g.
+     * {@code entityManager::detach}), so the persistence context does not keep all the rows of the page.
+     */
+    <T> ResponseEntity<StreamingResponseBody> paginateStream(Function<PageRequest, Stream<T>> func, ObjectMapper objectMapper, StreamFormat format, TransactionOperations transactions, Consumer<? super T> written);
   }
   public interface AcceptSortParameters {
     /**
@@ -75,6 +210,46 @@ public class Pagination {
     DoPaginate sortBy(String sort, List<Sort.Order> defaultSort, SortableFields sortableFields);
   }
 
+  public interface DoKeysetPaginate {
+    /**
+     * Performs keyset pagination on the rows provided from the function, which must return at most
+     * {@link KeysetPageRequest#limit()} rows sorted by {@link KeysetPageRequest#sort()}. The sort keys are read from
+     * the properties of the rows.
+     */
+    <T> List<T> paginate(Function<KeysetPageRequest, List<T>> func);
+
+    /**
+     * As {@link #paginate(Function)} but reading the sort keys with the given extractor.
+     */
+    <T> List<T> paginate(Function<KeysetPageRequest, List<T>> func, KeyExtractor<T> keyExtractor);
+
+    /**
+     * Sets how the pagination links are sent (the DCSA headers by default).
+     */
+    DoKeysetPaginate withLinkHeaders(LinkHeaders linkHeaders);
+  }
+
+  public interface AcceptKeysetSortParameters {
+    /**
+     * As {@link AcceptSortParameters#sortBy(List)}, the last field must be unique.
+     */
+    DoKeysetPaginate sortBy(List<Sort.Order> defaultSort);
+
+    /**
+     * As {@link AcceptSortParameters#sortBy(String, List, SortableFields)}, the last field of the defaultSort must
+     * be unique (it is appended to the sort unless already used, which makes the order stable).
+     */
+    DoKeysetPaginate sortBy(String sort, List<Sort.Order> defaultSort, SortableFields sortableFields);
+  }
+
+  /**
+   * Reads the value of a sort key (a property of the sort) from a row.
+   */
+  @FunctionalInterface
+  public interface KeyExtractor<T> {
+    Object key(T row, String property);
+  }
+
   @RequiredArgsConstructor
   private static class Paginator implements AcceptSortParameters, DoPaginate {
     private final HttpServletRequest request;
@@ -83,6 +258,8 @@ public class Pagination {
     private final int pageSize;
     private final PagingNames pagingNames;
     private List<Sort.Order> sort;
+    private LongSupplier totalElements;
+    private LinkHeaders linkHeaders = LinkHeaders.DCSA;
 
     @Override
     public DoPaginate sortBy(List<Order> defaultSort) {
@@ -99,43 +276,189 @@ public class Pagination {
     @Override
     public <T> List<T> paginate(Function<PageRequest, PagedResult<T>> func) {
       PagedResult<T> pagedResult = func.apply(PageRequest.of(page, pageSize, Sort.by(sort)));
-      setPaginationHeaders(pagedResult);
+      setPaginationHeaders(Math.max(0, pagedResult.totalPages() - 1), pagedResult.totalPages() > page + 1);
       return pagedResult.content();
     }
 
-    private void setPaginationHeaders(PagedResult<?> pagedResult) {
-      String basePath = request.getScheme() + "://" +
-        request.getServerName() + ":" + request.getServerPort() +
-        request.getRequestURI() + "?" + pagingNames.pageName+ "=";
-      String parameters = getRequestParameters();
+    @Override
+    public DoPaginate withTotalElements(LongSupplier totalElements) {
+      this.totalElements = totalElements;
+      return this;
+    }
 
-      response.setHeader("Current-Page", basePath + page + parameters);
-      response.setHeader("First-Page", basePath + "0" + parameters);
-      response.setHeader("Last-Page", basePath + Math.max(0, pagedResult.totalPages() - 1) + parameters);
+    @Override
+    public <T> List<T> paginateSlice(Function<PageRequest, Slice<T>> func) {
+      Slice<T> slice = func.apply(PageRequest.of(page, pageSize, Sort.by(sort)));
+      setPaginationHeaders(lastPage(slice.hasNext()), slice.hasNext());
+      return slice.getContent();
+    }
+
+    @Override
+    public <T> List<T> paginateLookahead(Function<PageRequest, List<T>> func) {
+      List<T> rows = func.apply(PageRequest.of(page, pageSize, Sort.by(sort)));
+      boolean hasNext = rows.size() > pageSize;
+      setPaginationHeaders(lastPage(hasNext), hasNext);
+      return hasNext ? rows.subList(0, pageSize) : rows;
+    }
+
+    @Override
+    public DoPaginate withLinkHeaders(LinkHeaders linkHeaders) {
+      this.linkHeaders = linkHeaders;
+      return this;
+    }
+
+    @Override
+    public <T> ResponseEntity<StreamingResponseBody> paginateStream(Function<PageRequest, Stream<T>> func, ObjectMapper objectMapper, StreamFormat format, TransactionOperations transactions) {
+      return paginateStream(func, objectMapper, format, transactions, row -> {});
+    }
+
+    @Override
+    public <T> ResponseEntity<StreamingResponseBody> paginateStream(Function<PageRequest, Stream<T>> func, ObjectMapper objectMapper, StreamFormat format, TransactionOperations transactions, Consumer<? super T> written) {
+      PageRequest pageRequest = PageRequest.of(page, pageSize, Sort.by(sort));
+      return ResponseEntity.ok()
+        .contentType(format.mediaType())
+        .body(new PageStream<>(func, pageRequest, hasNext -> setPaginationHeaders(lastPage(hasNext), hasNext),
+          written, objectMapper, format, transactions));
+    }
+
+    /**
+     * The last page according to the total (or -1 if unknown), but never before a page known to exist.
+     */
+    private int lastPage(boolean hasNext) {
+      long total = totalElements != null ? totalElements.getAsLong() : -1;
+      if (total < 0) {
+        return -1;
+      }
+      long estimatedLastPage = Math.max(0, (total + pageSize - 1) / pageSize - 1);
+      return (int) Math.min(Integer.MAX_VALUE, Math.max(estimatedLastPage, hasNext ? page + 1 : page));
+    }
+
+    /**
+     * @param lastPage the last page, the Last-Page header is omitted if it is negative
+     */
+    private void setPaginationHeaders(int lastPage, boolean hasNext) {
+      PageLinks links = new PageLinks(request, pagingNames.pageName);
+      PageHeaders headers = new PageHeaders(response, linkHeaders);
+
+      headers.current(links.link(page));
+      headers.first(links.link(0));
+      if (lastPage >= 0) {
+        headers.last(links.link(lastPage));
+      }
 
       if (page > 0) {
-        response.setHeader("Previous-Page", basePath + (page - 1) + parameters);
+        headers.previous(links.link(page - 1));
       }
-      if (pagedResult.totalPages() > page + 1) {
-        response.setHeader("Next-Page", basePath + (page + 1) + parameters);
+      if (hasNext) {
+        headers.next(links.link(page + 1));
       }
+      headers.write();
     }
 
-    private String getRequestParameters() {
-      StringBuilder parameters = new StringBuilder();
+  }
 
-      request.getParameterMap().forEach((String key, String[] values) -> {
-        if (!pagingNames.pageName.equals(key)) {
-          String firstValue = (values != null && values.length > 0) ? values[0] : "";
-          parameters.append("&").append(urlEncode(key)).append("=").append(urlEncode(firstValue));
+  @RequiredArgsConstructor
+  private static class KeysetPaginator implements AcceptKeysetSortParameters, DoKeysetPaginate {
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final String cursor;
+    private final int pageSize;
+    private final PagingNames pagingNames;
+    private List<Sort.Order> sort;
+    private LinkHeaders linkHeaders = LinkHeaders.DCSA;
+
+    @Override
+    public DoKeysetPaginate sortBy(List<Order> defaultSort) {
+      this.sort = defaultSort;
+      return this;
+    }
+
+    @Override
+    public DoKeysetPaginate sortBy(String sort, List<Order> defaultSort, SortableFields sortableFields) {
+      this.sort = parseSort(sort, defaultSort, sortableFields);
+      return this;
+    }
+
+    @Override
+    public DoKeysetPaginate withLinkHeaders(LinkHeaders linkHeaders) {
+      this.linkHeaders = linkHeaders;
+      return this;
+    }
+
+    @Override
+    public <T> List<T> paginate(Function<KeysetPageRequest, List<T>> func) {
+      return paginate(func, KeysetPaginator::propertyValue);
+    }
+
+    @Override
+    public <T> List<T> paginate(Function<KeysetPageRequest, List<T>> func, KeyExtractor<T> keyExtractor) {
+      KeysetCursor keysetCursor = cursor != null ? KeysetCursor.decode(cursor, pagingNames.pageName, sort) : null;
+      KeysetPageRequest pageRequest = new KeysetPageRequest(sort, keysetCursor, pageSize);
+      List<T> rows = func.apply(pageRequest);
+      boolean hasMore = rows.size() > pageSize;
+      List<T> content = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+      if (pageRequest.isBackward()) {
+        Collections.reverse(content);
+      }
+      setPaginationHeaders(pageRequest, content, hasMore, keyExtractor);
+      return content;
+    }
+
+    private <T> void setPaginationHeaders(KeysetPageRequest pageRequest, List<T> content, boolean hasMore, KeyExtractor<T> keyExtractor) {
+      PageLinks links = new PageLinks(request, pagingNames.pageName);
+      PageHeaders headers = new PageHeaders(response, linkHeaders);
+      boolean hasCursorValues = pageRequest.cursor() != null && !pageRequest.cursor().values().isEmpty();
+
+      headers.current(cursor != null ? links.link(cursor) : links.linkWithoutPage());
+      headers.first(links.linkWithoutPage());
+      headers.last(links.link(KeysetCursor.LAST.encode(sort)));
+
+      if (!content.isEmpty()) {
+        boolean hasPrevious = pageRequest.isBackward() ? hasMore : hasCursorValues;
+        boolean hasNext = pageRequest.isBackward() ? hasCursorValues : hasMore;
+        if (hasPrevious) {
+          KeysetCursor previous = KeysetCursor.before(keys(content.get(0), keyExtractor));
+          headers.previous(links.link(previous.encode(sort)));
         }
-      });
+        if (hasNext) {
+          KeysetCursor next = KeysetCursor.after(keys(content.get(content.size() - 1), keyExtractor));
+          headers.next(links.link(next.encode(sort)));
+        }
+      }
+      headers.write();
+    }
 
-      return parameters.toString();
+    private <T> List<Object> keys(T row, KeyExtractor<T> keyExtractor) {
+      return sort.stream().map(order -> keyExtractor.key(row, order.getProperty())).toList();
     }
 
-    private String urlEncode(String src) {
-      return URLEncoder.encode(src, Charset.defaultCharset());
+    /**
+     * Reads a (possibly nested, e.g. "location.name") property of a bean or record.
+     */
+    private static Object propertyValue(Object row, String property) {
+      Object value = row;
+      for (String part : property.split("\\.")) {
+        if (value == null) {
+          return null;
+        }
+        value = value instanceof Record record
+          ? recordComponent(record, part)
+          : PropertyAccessorFactory.forBeanPropertyAccess(value).getPropertyValue(part);
+      }
+      return value;
+    }
+
+    private static Object recordComponent(Record record, String name) {
+      for (RecordComponent component : record.getClass().getRecordComponents()) {
+        if (component.getName().equals(name)) {
+          try {
+            return component.getAccessor().invoke(record);
+          } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalArgumentException("Cannot read " + name + " of " + record.getClass().getSimpleName(), e);
+          }
+        }
+      }
+      throw new IllegalArgumentException(record.getClass().getSimpleName() + " has no component " + name);
     }
   }
 
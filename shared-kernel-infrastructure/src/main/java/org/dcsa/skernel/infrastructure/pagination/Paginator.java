@@ -1,9 +1,10 @@
 package org.dcsa.skernel.infrastructure.pagination;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,15 +18,28 @@ import java.util.stream.Collectors;
 
 /**
  * Helper class for doing "cursor" based pagination using spring-data.
+ *
+ * <p>Cursors are JSON unless there is a {@link CursorCodec} bean, in which case they are encoded with it (JSON
+ * cursors are still accepted unless the codec signs its cursors).</p>
  */
 @Deprecated
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class Paginator {
   private final ObjectMapper objectMapper;
+  private final CursorCodec cursorCodec;
   private final Set<String> reservedArguments = Set.of("limit", "cursor");
 
+  public Paginator(ObjectMapper objectMapper) {
+    this(objectMapper, null);
+  }
+
+  @Autowired
+  public Paginator(ObjectMapper objectMapper, @Nullable CursorCodec cursorCodec) {
+    this.objectMapper = objectMapper;
+    this.cursorCodec = cursorCodec;
+  }
+
   /**
    * Parses the incoming request and returns a Cursor for querying jpa repositories.
    */
@@ -103,11 +117,17 @@ public class Paginator {
 
   @SneakyThrows
   String cursorToString(Cursor cursor) {
+    if (cursorCodec != null) {
+      return cursorCodec.encode(cursor);
+    }
     return Base64.getUrlEncoder().encodeToString(objectMapper.writeValueAsBytes(cursor));
   }
 
   @SneakyThrows
   Cursor cursorFromString(String cursor) {
+    if (cursorCodec != null && !cursorCodec.isJson(cursor)) {
+      return cursorCodec.decode(cursor);
+    }
     return objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), Cursor.class);
   }
 
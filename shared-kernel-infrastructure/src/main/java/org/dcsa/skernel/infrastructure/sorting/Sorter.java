@@ -6,7 +6,9 @@ import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -26,14 +28,42 @@ public class Sorter {
    *        .addMapping("shippingInstructionCreatedDateTime", "createdDateTime");
    * </pre></code>
    * </p>
+   *
+   * <p>SortableFields are thread-safe. They remember the most recently used sorts parsed with them (up to
+   * {@link #MAX_CACHED_SORTS} distinct sort parameters), so keep them in a constant or field rather than creating
+   * them per request. {@link #addMapping(String, String)} changes the instance (and forgets the remembered sorts),
+   * {@link #withMapping(String, String)} returns a new instance.</p>
    */
   public static class SortableFields {
-    private final Map<String, String> sortableFields;
+    public static final int MAX_CACHED_SORTS = 256;
+
+    private record SortKey(String sort, List<Sort.Order> defaultSort) {}
+
+    /**
+     * The mappings with the sorts parsed with them, replaced as a whole when a mapping is added.
+     */
+    private record Mappings(Map<String, String> sortableFields, String supportedFields, Map<SortKey, List<Sort.Order>> parsedSorts) {
+      Mappings(Map<String, String> sortableFields) {
+        this(Map.copyOf(sortableFields), Sorter.supportedFields(sortableFields), lruCache());
+      }
+
+      private static Map<SortKey, List<Sort.Order>> lruCache() {
+        Map<SortKey, List<Sort.Order>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<SortKey, List<Sort.Order>> eldest) {
+            return size() > MAX_CACHED_SORTS;
+          }
+        };
+        return Collections.synchronizedMap(cache);
+      }
+    }
+
+    private volatile Mappings mappings;
 
     private SortableFields(Map<String, String> sortableFields) {
       Objects.requireNonNull(sortableFields);
       assert !sortableFields.isEmpty();
-      this.sortableFields = sortableFields;
+      this.mappings = new Mappings(sortableFields);
     }
 
     public static SortableFields of(Set<String> sortableFields) {
@@ -51,14 +81,47 @@ public class Sorter {
     /**
      * Adds or overrides a mapping from an input name to a database entity field.
      */
-    public SortableFields addMapping(String k, String v) {
+    public synchronized SortableFields addMapping(String k, String v) {
+      Map<String, String> sortableFields = new HashMap<>(mappings.sortableFields());
       sortableFields.put(k, v);
+      mappings = new Mappings(sortableFields);
       return this;
     }
+
+    /**
+     * Returns SortableFields with an added or overridden mapping from an input name to a database entity field
+     * (this instance is not changed).
+     */
+    public SortableFields withMapping(String k, String v) {
+      Map<String, String> sortableFields = new HashMap<>(mappings.sortableFields());
+      sortableFields.put(k, v);
+      return new SortableFields(sortableFields);
+    }
+
+    /**
+     * The database entity fields that can be sorted on, sorted by name.
+     */
+    public List<String> databaseFields() {
+      return mappings.sortableFields().values().stream().distinct().sorted().toList();
+    }
+
+    List<Sort.Order> parseSort(String sort, List<Sort.Order> defaultSort) {
+      Mappings current = mappings;
+      SortKey key = new SortKey(sort, defaultSort);
+      List<Sort.Order> parsed = current.parsedSorts().get(key);
+      if (parsed == null) {
+        parsed = List.copyOf(Sorter.parseSort(sort, defaultSort, current.sortableFields(), current.supportedFields(),
+          Sort.Order::new, Sort.Order::getProperty));
+        // The least recently used sort is evicted once the cache is full
+        current.parsedSorts().put(key, parsed);
+      }
+      return parsed;
+    }
   }
 
   private final List<Cursor.SortBy> defaultSort;
   private final Map<String, String> sortableFields;
+  private final String supportedFields;
 
   @Deprecated
   public Sorter(List<Cursor.SortBy> defaultSort, String... sortableFields) {
@@ -67,6 +130,7 @@ public class Sorter {
     if (this.sortableFields.isEmpty()) {
       throw new IllegalArgumentException("Must allow at least one sortable field!");
     }
+    this.supportedFields = supportedFields(this.sortableFields);
   }
 
   /**
@@ -75,67 +139,99 @@ public class Sorter {
    */
   @Deprecated
   public List<Cursor.SortBy> parseSort(String sort) {
-    return parseSort(sort, defaultSort, sortableFields, Cursor.SortBy::new, Cursor.SortBy::field);
+    return parseSort(sort, defaultSort, sortableFields, supportedFields, Cursor.SortBy::new, Cursor.SortBy::field);
   }
 
   /**
    * <p>Parses the incoming sort parameter with the format of 'field:direction' e.g. date:ASC or e.g.
    * date:ASC,reference:DESC into a Sort.Order used by Spring.</p>
    *
+   * <p>The parsed sort is cached in the sortableFields, each call returns a (mutable) copy of it so callers can
+   * append to it, e.g. a tiebreaker.</p>
+   *
    * <p><b>Note the defaultSort is assumed to contain at least one field that is reasonable unique as to give a stable
    * result.</b></p>
    */
   public static List<Sort.Order> parseSort(String sort, List<Sort.Order> defaultSort, SortableFields sortableFields) {
-    return parseSort(sort, defaultSort, sortableFields.sortableFields, Sort.Order::new, Sort.Order::getProperty);
+    if (sort == null) {
+      return defaultSort;
+    }
+    return new ArrayList<>(sortableFields.parseSort(sort, defaultSort));
   }
 
-  private static <T> List<T> parseSort(String sort, List<T> defaultSort, Map<String, String> sortableFields,
+  private static String supportedFields(Map<String, String> sortableFields) {
+    return sortableFields.keySet().stream().sorted().collect(Collectors.joining(", "));
+  }
+
+  private static <T> List<T> parseSort(String sort, List<T> defaultSort, Map<String, String> sortableFields, String supportedFields,
                                        BiFunction<Sort.Direction, String, T> creator, Function<T, String> getField) {
     if (sort == null) {
       return defaultSort;
     }
 
-    Set<String> addedFields = new HashSet<>();
-    List<T> result = Arrays.stream(sort.split(","))
-      .map(String::trim)
-      .map(
-        sortField -> {
-          String[] fieldAndDirection = sortField.split(":", 2);
-          String actualSortField = fieldAndDirection[0];
-          Sort.Direction direction = Sort.Direction.ASC;
-          assert fieldAndDirection.length <= 2;
-
-          if (!sortableFields.containsKey(actualSortField)) {
-            throw ConcreteRequestErrorMessageException.invalidQuery(
-              "sort", "Cannot sort on '" + actualSortField
-                + "'. This implementation supports the following sortable fields: "
-                + sortableFields.keySet().stream().sorted().collect(Collectors.joining(", ")));
-          }
-
-          if (fieldAndDirection.length == 2) {
-            direction =
-              Sort.Direction.fromOptionalString(fieldAndDirection[1])
-                .orElseThrow(
-                  () ->
-                    ConcreteRequestErrorMessageException.invalidQuery(
-                      "sort",
-                      "'" + fieldAndDirection[1] + "' is not a valid direction."
-                        + " Please use ASC or DESC as direction."));
-          }
+    // Splits on "," as String.split does: trailing empty fields are ignored (unless the sort is empty)
+    int end = sort.length();
+    while (end > 0 && sort.charAt(end - 1) == ',') {
+      end--;
+    }
+    if (end == 0 && !sort.isEmpty()) {
+      return new ArrayList<>(defaultSort);
+    }
 
-          String dbField = sortableFields.get(actualSortField);
-          addedFields.add(dbField);
-          return creator.apply(direction, dbField);
-        })
-      .collect(Collectors.toCollection(ArrayList::new));
+    List<T> result = new ArrayList<>();
+    List<String> addedFields = new ArrayList<>();
+    int start = 0;
+    while (start <= end) {
+      int comma = sort.indexOf(',', start);
+      int fieldEnd = comma < 0 || comma > end ? end : comma;
+      String sortField = sort.substring(start, fieldEnd).trim();
+      start = fieldEnd + 1;
+
+      int colon = sortField.indexOf(':');
+      String actualSortField = colon < 0 ? sortField : sortField.substring(0, colon);
+      Sort.Direction direction = Sort.Direction.ASC;
+
+      String dbField = sortableFields.get(actualSortField);
+      if (dbField == null) {
+        throw ConcreteRequestErrorMessageException.invalidQuery(
+          "sort", "Cannot sort on '" + actualSortField
+            + "'. This implementation supports the following sortable fields: " + supportedFields);
+      }
+
+      if (colon >= 0) {
+        String directionName = sortField.substring(colon + 1);
+        direction = parseDirection(directionName);
+        if (direction == null) {
+          throw ConcreteRequestErrorMessageException.invalidQuery(
+            "sort",
+            "'" + directionName + "' is not a valid direction."
+              + " Please use ASC or DESC as direction.");
+        }
+      }
+
+      addedFields.add(dbField);
+      result.add(creator.apply(direction, dbField));
+    }
 
     // Assuming that the defaultSort is on something reasonable unique that gives a stable result
     // always add the fields from defaultSort to the end if they are not already used. This ensures
     // a stable result even if the user decides to sort on something that is not unique.
-    defaultSort.stream()
-      .filter(o -> !addedFields.contains(getField.apply(o)))
-      .forEach(result::add);
+    for (T order : defaultSort) {
+      if (!addedFields.contains(getField.apply(order))) {
+        result.add(order);
+      }
+    }
 
     return result;
   }
+
+  private static Sort.Direction parseDirection(String direction) {
+    if (direction.equalsIgnoreCase("ASC")) {
+      return Sort.Direction.ASC;
+    }
+    if (direction.equalsIgnoreCase("DESC")) {
+      return Sort.Direction.DESC;
+    }
+    return null;
+  }
 }
@@ -0,0 +1,125 @@
+package org.dcsa.skernel.infrastructure.http.queryparams;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
+import org.dcsa.skernel.infrastructure.http.queryparams.QueryFilters.SqlWhere;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class QueryFiltersTest {
+  private static final String VALID_DATETIME_AS_STRING = "2021-04-01T14:12:56+01:00";
+  private static final OffsetDateTime VALID_DATETIME = OffsetDateTime.parse(VALID_DATETIME_AS_STRING);
+
+  private static class Event {}
+
+  private enum EventType { SHIPMENT, EQUIPMENT }
+
+  private final QueryFilters<Event> filters = QueryFilters.<Event>builder()
+    .field("eventCreatedDateTime", "eventCreatedDateTime", "event_created_date_time", OffsetDateTime::parse)
+    .field("carrierBookingReference", "booking.carrierBookingReference", "carrier_booking_reference", Function.identity(), ComparisonType.EQ)
+    .build();
+
+  @Test
+  public void testToSqlWhere() {
+    Map<String, String> queryParameters = new LinkedHashMap<>();
+    queryParameters.put("eventCreatedDateTime:gte", VALID_DATETIME_AS_STRING);
+    queryParameters.put("limit", "10");
+    queryParameters.put("carrierBookingReference", "cbr-1");
+    queryParameters.put("eventCreatedDateTime:LT", VALID_DATETIME_AS_STRING);
+
+    SqlWhere where = filters.toSqlWhere(queryParameters);
+
+    assertEquals("event_created_date_time >= ? and carrier_booking_reference = ? and event_created_date_time < ?", where.sql());
+    assertEquals(List.of(VALID_DATETIME, "cbr-1", VALID_DATETIME), where.parameters());
+    assertEquals("1 = 1", filters.toSqlWhere(Map.of("limit", "10")).sql());
+  }
+
+  @Test
+  public void testToSqlWhere_EnumField() {
+    QueryFilters<Event> enumFilters = QueryFilters.<Event>builder()
+      .field("eventType", "eventType", "event_type", EventType::valueOf, ComparisonType.EQ)
+      .build();
+
+    SqlWhere where = enumFilters.toSqlWhere(Map.of("eventType", "SHIPMENT"));
+
+    assertEquals("event_type = ?", where.sql());
+    // Bound untyped so it can be compared with a PostgreSQL enum column
+    SqlParameterValue parameter = assertInstanceOf(SqlParameterValue.class, where.parameters().get(0));
+    assertEquals(Types.OTHER, parameter.getSqlType());
+    assertEquals("SHIPMENT", parameter.getValue());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testToSpecification() {
+    Root<Event> root = mock(Root.class);
+    Path<Object> booking = mock(Path.class);
+    Path<Object> carrierBookingReference = mock(Path.class);
+    CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    Predicate equal = mock(Predicate.class);
+    Predicate and = mock(Predicate.class);
+    when(root.get("booking")).thenReturn(booking);
+    when(booking.get("carrierBookingReference")).thenReturn(carrierBookingReference);
+    when(cb.equal(carrierBookingReference, "cbr-1")).thenReturn(equal);
+    when(cb.and(equal)).thenReturn(and);
+
+    Predicate predicate = filters.toSpecification(Map.of("carrierBookingReference", "cbr-1"))
+      .toPredicate(root, mock(CriteriaQuery.class), cb);
+
+    assertSame(and, predicate);
+  }
+
+  @Test
+  public void testParse_Invalid() {
+    ConcreteRequestErrorMessageException unknownOperator = assertThrows(ConcreteRequestErrorMessageException.class,
+      () -> filters.parse(Map.of("eventCreatedDateTime:foo", VALID_DATETIME_AS_STRING)));
+    assertEquals("Unknown attribute / operator: foo", unknownOperator.getMessage());
+
+    ConcreteRequestErrorMessageException notAllowed = assertThrows(ConcreteRequestErrorMessageException.class,
+      () -> filters.parse(Map.of("carrierBookingReference:gt", "cbr-1")));
+    assertEquals("Unsupported attribute / operator for carrierBookingReference: gt", notAllowed.getMessage());
+
+    ConcreteRequestErrorMessageException invalidValue = assertThrows(ConcreteRequestErrorMessageException.class,
+      () -> filters.parse(Map.of("eventCreatedDateTime:lt", "yesterday")));
+    assertEquals("Invalid value for eventCreatedDateTime:lt", invalidValue.getMessage());
+  }
+
+  @Test
+  public void testToSqlWhere_FieldWithoutColumn() {
+    QueryFilters<Event> specificationFilters = QueryFilters.<Event>builder()
+      .field("eventCreatedDateTime", "eventCreatedDateTime", "event_created_date_time", OffsetDateTime::parse)
+      .field("carrierBookingReference", "booking.carrierBookingReference", Function.identity())
+      .build();
+
+    IllegalStateException exception = assertThrows(IllegalStateException.class,
+      () -> specificationFilters.toSqlWhere(Map.of("eventCreatedDateTime", VALID_DATETIME_AS_STRING)));
+    assertEquals("Query fields without a column cannot be used in SQL: [carrierBookingReference]", exception.getMessage());
+  }
+
+  @Test
+  public void testBuild_DuplicateField() {
+    QueryFilters.Builder<Event> builder = QueryFilters.<Event>builder()
+      .field("a", "a", Function.identity())
+      .field("a", "b", Function.identity());
+
+    assertThrows(IllegalArgumentException.class, builder::build);
+  }
+}
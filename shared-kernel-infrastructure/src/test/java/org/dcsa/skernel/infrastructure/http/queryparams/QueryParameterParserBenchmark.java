@@ -0,0 +1,86 @@
+package org.dcsa.skernel.infrastructure.http.queryparams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares parsing the filters of a request with a scan, split and {@code valueOf} per basename (as the parser did
+ * before the single pass parsing) with {@link DCSAQueryParameterParser} per basename and with a
+ * {@link QueryParameterIndex}.
+ *
+ * <p>Run with the test classpath, e.g. from the IDE through {@link #main(String[])}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryParameterParserBenchmark {
+  private static final List<String> BASENAMES = List.of(
+    "eventCreatedDateTime", "eventType", "carrierBookingReference", "transportDocumentReference");
+
+  private final DCSAQueryParameterParser parser = new DCSAQueryParameterParser();
+  private final Map<String, String> queryParameters = new LinkedHashMap<>(Map.of(
+    "eventCreatedDateTime:gte", "2021-01-01T00:00:00Z",
+    "eventCreatedDateTime:lt", "2022-01-01T00:00:00Z",
+    "eventType", "SHIPMENT",
+    "carrierBookingReference", "ABC123",
+    "limit", "20",
+    "sort", "eventCreatedDateTime:DESC",
+    "cursor", "fE9mZnNldHw9MTAmbGltaXQ9MTA"
+  ));
+
+  @Benchmark
+  public void splitPerBasename(Blackhole blackhole) {
+    for (String basename : BASENAMES) {
+      blackhole.consume(splitAndValueOf(queryParameters, basename, Function.identity()));
+    }
+  }
+
+  @Benchmark
+  public void parserPerBasename(Blackhole blackhole) {
+    for (String basename : BASENAMES) {
+      blackhole.consume(parser.parseCustomQueryParameter(queryParameters, basename, Function.identity()));
+    }
+  }
+
+  @Benchmark
+  public void index(Blackhole blackhole) {
+    QueryParameterIndex index = parser.index(queryParameters);
+    for (String basename : BASENAMES) {
+      blackhole.consume(index.parse(basename, Function.identity()));
+    }
+  }
+
+  private static <T> List<ParsedQueryParameter<T>> splitAndValueOf(Map<String, String> allQueryParameters, String basename, Function<String, T> valueParser) {
+    return allQueryParameters.entrySet().stream()
+      .filter(e -> e.getKey().equals(basename) || e.getKey().startsWith(basename + ":"))
+      .map(entry -> {
+        String[] parts = entry.getKey().split(":", 2);
+        ComparisonType comparisonType = parts.length < 2 ? ComparisonType.EQ : ComparisonType.valueOf(parts[1].toUpperCase());
+        return new ParsedQueryParameter<>(basename, comparisonType, valueParser.apply(entry.getValue()));
+      }).toList();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(QueryParameterParserBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -124,4 +125,56 @@ public class QueryParameterParserTest {
     assertTrue(exception.getMessage().contains("Invalid value"));
   }
 
+  @Test
+  public void testQueryParameterParserIndex() {
+    Map<String, String> queryParameters = new LinkedHashMap<>();
+    queryParameters.put(QUERY_PARAM_ECDT + ":Gte", VALID_DATETIME_AS_STRING);
+    queryParameters.put("limit", "10");
+    queryParameters.put("eventDateTime", VALID_DATETIME_AS_STRING);
+    queryParameters.put(QUERY_PARAM_ECDT + ":lt", VALID_DATETIME_AS_STRING);
+
+    QueryParameterIndex index = dcsaQueryParameterParser.index(queryParameters);
+
+    assertEquals(Set.of(QUERY_PARAM_ECDT, "limit", "eventDateTime"), index.basenames());
+    assertEquals(
+      List.of(
+        new ParsedQueryParameter<>(QUERY_PARAM_ECDT, ComparisonType.GTE, VALID_DATETIME),
+        new ParsedQueryParameter<>(QUERY_PARAM_ECDT, ComparisonType.LT, VALID_DATETIME)
+      ),
+      index.parse(QUERY_PARAM_ECDT, ZonedDateTime::parse)
+    );
+    assertEquals(Optional.of(new ParsedQueryParameter<>("limit", ComparisonType.EQ, 10)), index.parseAtMostOnce("limit", Integer::valueOf));
+    assertEquals(Optional.empty(), index.parseAtMostOnce("cursor", Function.identity()));
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> index.parseAtMostOnce(QUERY_PARAM_ECDT, ZonedDateTime::parse));
+  }
+
+  @Test
+  public void testQueryParameterParserManyBasenames() {
+    Map<String, List<ParsedQueryParameter<ZonedDateTime>>> results = dcsaQueryParameterParser.parseCustomQueryParameters(
+      Map.of(QUERY_PARAM_ECDT + ":gt", VALID_DATETIME_AS_STRING, "eventDateTime", VALID_DATETIME_AS_STRING),
+      List.of(QUERY_PARAM_ECDT, "eventDateTime", "unused"),
+      ZonedDateTime::parse);
+
+    assertEquals(List.of(QUERY_PARAM_ECDT, "eventDateTime", "unused"), List.copyOf(results.keySet()));
+    assertEquals(List.of(new ParsedQueryParameter<>(QUERY_PARAM_ECDT, ComparisonType.GT, VALID_DATETIME)), results.get(QUERY_PARAM_ECDT));
+    assertEquals(List.of(new ParsedQueryParameter<>("eventDateTime", ComparisonType.EQ, VALID_DATETIME)), results.get("eventDateTime"));
+    assertEquals(List.of(), results.get("unused"));
+
+    ConcreteRequestErrorMessageException exception = assertThrows(
+      ConcreteRequestErrorMessageException.class,
+      () -> dcsaQueryParameterParser.index(Map.of(QUERY_PARAM_ECDT + ":between", VALID_DATETIME_AS_STRING))
+        .parse(QUERY_PARAM_ECDT, ZonedDateTime::parse)
+    );
+    assertEquals("Unknown attribute / operator: between", exception.getMessage());
+  }
+
+  @Test
+  public void testComparisonTypeFromAttribute() {
+    for (ComparisonType comparisonType : ComparisonType.values()) {
+      assertEquals(comparisonType, ComparisonType.fromAttribute(comparisonType.name()));
+      assertEquals(comparisonType, ComparisonType.fromAttribute(comparisonType.name().toLowerCase()));
+    }
+    assertEquals(ComparisonType.LTE, ComparisonType.fromAttribute("lTe"));
+    assertNull(ComparisonType.fromAttribute("between"));
+  }
 }
@@ -0,0 +1,65 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CountCacheTest {
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger counted = new AtomicInteger();
+  private final CountCache countCache = new CountCache(Duration.ofNanos(100), 2, now::get);
+
+  @Test
+  public void testCount_CachedUntilExpired() {
+    LongSupplier count = countCache.count(List.of("filter"), this::count);
+
+    assertEquals(1, count.getAsLong());
+    now.set(99);
+    assertEquals(1, count.getAsLong());
+    now.set(100);
+    assertEquals(2, count.getAsLong());
+  }
+
+  @Test
+  public void testCount_PerFilter() {
+    assertEquals(1, countCache.count(List.of("a"), this::count).getAsLong());
+    assertEquals(2, countCache.count(List.of("b"), this::count).getAsLong());
+    assertEquals(1, countCache.count(List.of("a"), this::count).getAsLong());
+  }
+
+  @Test
+  public void testCount_EvictsLeastRecentlyUsed() {
+    countCache.count("a", this::count).getAsLong();
+    countCache.count("b", this::count).getAsLong();
+    assertEquals(1, countCache.count("a", this::count).getAsLong());
+    countCache.count("c", this::count).getAsLong();
+
+    assertEquals(1, countCache.count("a", this::count).getAsLong());
+    assertEquals(4, countCache.count("b", this::count).getAsLong());
+  }
+
+  @Test
+  public void testCount_EvictsExpiredFirst() {
+    countCache.count("a", this::count).getAsLong();
+    now.set(50);
+    countCache.count("b", this::count).getAsLong();
+    now.set(90);
+    assertEquals(1, countCache.count("a", this::count).getAsLong());
+    // "a" has expired, so it is evicted rather than the least recently used "b"
+    now.set(120);
+    countCache.count("c", this::count).getAsLong();
+
+    assertEquals(2, countCache.count("b", this::count).getAsLong());
+    assertEquals(3, countCache.count("c", this::count).getAsLong());
+  }
+
+  private long count() {
+    return counted.incrementAndGet();
+  }
+}
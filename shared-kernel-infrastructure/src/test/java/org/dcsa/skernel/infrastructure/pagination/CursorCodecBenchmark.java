@@ -0,0 +1,89 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dcsa.skernel.infrastructure.sorting.Sorter.SortableFields;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding a cursor as Base64 encoded JSON (the {@link Paginator} without a codec) with the
+ * binary {@link CursorCodec}, unsigned and signed.
+ *
+ * <p>Run with the test classpath, e.g. from the IDE through {@link #main(String[])}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CursorCodecBenchmark {
+  private final Cursor cursor = new Cursor(
+    300, 20,
+    new Cursor.SortBy(Sort.Direction.DESC, "eventCreatedDateTime"),
+    new Cursor.SortBy(Sort.Direction.ASC, "carrierBookingReference"),
+    new Cursor.SortBy(Sort.Direction.ASC, "id")
+  );
+  private final Paginator jsonPaginator = new Paginator(new ObjectMapper());
+  private final CursorCodec codec = CursorCodec.of(SortableFields.of("id", "eventCreatedDateTime", "carrierBookingReference"));
+  private final CursorCodec signedCodec = codec.signedWith("benchmark-secret".getBytes(StandardCharsets.UTF_8));
+  private String jsonCursor;
+  private String binaryCursor;
+  private String signedCursor;
+
+  @Setup
+  public void setup() {
+    jsonCursor = jsonPaginator.cursorToString(cursor);
+    binaryCursor = codec.encode(cursor);
+    signedCursor = signedCodec.encode(cursor);
+  }
+
+  @Benchmark
+  public String encodeJson() {
+    return jsonPaginator.cursorToString(cursor);
+  }
+
+  @Benchmark
+  public String encodeBinary() {
+    return codec.encode(cursor);
+  }
+
+  @Benchmark
+  public String encodeSigned() {
+    return signedCodec.encode(cursor);
+  }
+
+  @Benchmark
+  public Cursor decodeJson() {
+    return jsonPaginator.cursorFromString(jsonCursor);
+  }
+
+  @Benchmark
+  public Cursor decodeBinary() {
+    return codec.decode(binaryCursor);
+  }
+
+  @Benchmark
+  public Cursor decodeSigned() {
+    return signedCodec.decode(signedCursor);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CursorCodecBenchmark.class.getSimpleName()).build()).run();
+  }
+}
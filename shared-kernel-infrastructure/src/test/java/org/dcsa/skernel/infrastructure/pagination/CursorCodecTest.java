@@ -0,0 +1,76 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
+import org.dcsa.skernel.infrastructure.sorting.Sorter.SortableFields;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CursorCodecTest {
+  private final Cursor cursor = new Cursor(
+    300, 20,
+    new Cursor.SortBy(Sort.Direction.DESC, "createdDateTime"),
+    new Cursor.SortBy(Sort.Direction.ASC, "unknownField"),
+    new Cursor.SortBy(Sort.Direction.ASC, "id")
+  );
+  private final CursorCodec codec = CursorCodec.of(SortableFields.of("id", "createdDateTime"));
+  private final CursorCodec signedCodec = codec.signedWith("secret".getBytes(StandardCharsets.UTF_8));
+
+  @Test
+  public void testEncode_RoundTrip() {
+    assertEquals(cursor, codec.decode(codec.encode(cursor)));
+    assertEquals(cursor, signedCodec.decode(signedCodec.encode(cursor)));
+  }
+
+  @Test
+  public void testEncode_SmallerThanJson() {
+    Paginator jsonPaginator = new Paginator(new ObjectMapper());
+    Cursor indexedCursor = new Cursor(3, 20, Sort.Direction.ASC, "createdDateTime", "id");
+
+    int jsonLength = jsonPaginator.cursorToString(indexedCursor).length();
+    assertTrue(codec.encode(indexedCursor).length() * 4 < jsonLength);
+    assertTrue(signedCodec.encode(indexedCursor).length() * 2 < jsonLength);
+  }
+
+  @Test
+  public void testDecode_Tampered() {
+    byte[] bytes = Base64.getUrlDecoder().decode(signedCodec.encode(cursor));
+    bytes[2]++;
+    String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> signedCodec.decode(tampered));
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> signedCodec.decode(codec.encode(cursor)));
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> codec.decode(signedCodec.encode(cursor)));
+    assertThrows(ConcreteRequestErrorMessageException.class,
+      () -> codec.decode(codec.encode(cursor).substring(0, 5)));
+  }
+
+  @Test
+  public void testDecode_OtherKey() {
+    CursorCodec otherCodec = codec.signedWith("other".getBytes(StandardCharsets.UTF_8));
+    String encoded = signedCodec.encode(cursor);
+
+    assertNotEquals(encoded, otherCodec.encode(cursor));
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> otherCodec.decode(encoded));
+  }
+
+  @Test
+  public void testPaginator_AcceptsJsonCursors() {
+    ObjectMapper objectMapper = new ObjectMapper();
+    String jsonCursor = new Paginator(objectMapper).cursorToString(cursor);
+    Paginator paginator = new Paginator(objectMapper, codec);
+
+    assertEquals(cursor, paginator.cursorFromString(jsonCursor));
+    assertEquals(cursor, paginator.cursorFromString(paginator.cursorToString(cursor)));
+    assertThrows(ConcreteRequestErrorMessageException.class,
+      () -> new Paginator(objectMapper, signedCodec).cursorFromString(jsonCursor));
+  }
+}
@@ -0,0 +1,222 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KeysetPaginationTest {
+  private static final String BASE_PATH = "http://localhost:9090/vx/myService";
+
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+  private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+  private final List<Sort.Order> sort = List.of(
+    new Sort.Order(Direction.DESC, "name"),
+    new Sort.Order(Direction.ASC, "id")
+  );
+
+  private enum Kind { A, B }
+
+  private record Row(String name, Integer id) {}
+
+  @BeforeEach
+  public void resetMocks() {
+    reset(request, response);
+
+    when(request.getScheme()).thenReturn("http");
+    when(request.getServerName()).thenReturn("localhost");
+    when(request.getServerPort()).thenReturn(9090);
+    when(request.getRequestURI()).thenReturn("/vx/myService");
+  }
+
+  @Test
+  public void testKeysetHeaders_FirstPage() {
+    // Execute
+    List<Row> result = Pagination
+      .withKeyset(request, response, null, 2)
+      .sortBy(sort)
+      .paginate(pageRequest -> {
+        assertEquals(3, pageRequest.limit());
+        return List.of(new Row("c", 1), new Row("b", 2), new Row("a", 3));
+      });
+
+    // Verify
+    assertEquals(List.of(new Row("c", 1), new Row("b", 2)), result);
+    verify(response).setHeader("Current-Page", BASE_PATH);
+    verify(response).setHeader("First-Page", BASE_PATH);
+    verify(response).setHeader("Last-Page", BASE_PATH + "?cursor=" + KeysetCursor.LAST.encode(sort));
+    verify(response).setHeader("Next-Page", BASE_PATH + "?cursor=" + KeysetCursor.after(List.of("b", 2)).encode(sort));
+    verify(response, never()).setHeader(eq("Previous-Page"), any());
+  }
+
+  @Test
+  public void testKeysetHeaders_BackwardPage() {
+    // Setup
+    when(request.getParameterMap()).thenReturn(Map.of("otherStuff", new String[] {"testValue"}));
+    String cursor = KeysetCursor.before(List.of("b", 2)).encode(sort);
+
+    // Execute
+    List<Row> result = Pagination
+      .withKeyset(request, response, cursor, 1)
+      .sortBy(sort)
+      .paginate(pageRequest -> {
+        assertTrue(pageRequest.isBackward());
+        assertEquals(Sort.by(Sort.Order.asc("name").nullsLast(), Sort.Order.desc("id").nullsFirst()), pageRequest.sort());
+        return List.of(new Row("c", 1), new Row("d", 0));
+      });
+
+    // Verify
+    assertEquals(List.of(new Row("c", 1)), result);
+    String parameters = "&otherStuff=testValue";
+    verify(response).setHeader("Current-Page", BASE_PATH + "?cursor=" + cursor + parameters);
+    verify(response).setHeader("First-Page", BASE_PATH + "?otherStuff=testValue");
+    verify(response).setHeader("Previous-Page", BASE_PATH + "?cursor=" + KeysetCursor.before(List.of("c", 1)).encode(sort) + parameters);
+    verify(response).setHeader("Next-Page", BASE_PATH + "?cursor=" + KeysetCursor.after(List.of("c", 1)).encode(sort) + parameters);
+  }
+
+  @Test
+  public void testKeysetHeaders_LastPage() {
+    // Execute
+    Pagination
+      .withKeyset(request, response, KeysetCursor.LAST.encode(sort), 2)
+      .sortBy(sort)
+      .paginate(pageRequest -> List.of(new Row("a", 3), new Row("b", 2)));
+
+    // Verify
+    verify(response, never()).setHeader(eq("Next-Page"), any());
+    verify(response, never()).setHeader(eq("Previous-Page"), any());
+  }
+
+  @Test
+  public void testKeysetCursor_RoundTrip() {
+    List<Sort.Order> orders = List.of(
+      Sort.Order.asc("a"), Sort.Order.asc("b"), Sort.Order.asc("c"), Sort.Order.asc("d"),
+      Sort.Order.asc("e"), Sort.Order.asc("f"), Sort.Order.asc("g")
+    );
+    UUID id = UUID.randomUUID();
+    OffsetDateTime time = OffsetDateTime.parse("2023-01-02T03:04:05.678+01:00");
+    KeysetCursor cursor = KeysetCursor.after(List.of("x:|y", 42L, new BigDecimal("1.50"), id, time, LocalDate.of(2023, 1, 2), Kind.B));
+
+    KeysetCursor decoded = KeysetCursor.decode(cursor.encode(orders), "cursor", orders);
+
+    assertEquals(List.of("x:|y", 42L, new BigDecimal("1.50"), id, time, LocalDate.of(2023, 1, 2), "B"), decoded.values());
+    assertEquals(false, decoded.backward());
+  }
+
+  @Test
+  public void testKeysetCursor_RoundTripOtherTypes() {
+    List<Sort.Order> orders = List.of(
+      Sort.Order.asc("a"), Sort.Order.asc("b"), Sort.Order.asc("c"), Sort.Order.asc("d"), Sort.Order.asc("e")
+    );
+    List<Object> values = Arrays.asList(1.5f, (short) 7, LocalTime.of(10, 30), new BigInteger("12345678901234567890"), null);
+
+    assertEquals(values, KeysetCursor.decode(KeysetCursor.before(values).encode(orders), "cursor", orders).values());
+  }
+
+  @Test
+  public void testKeysetCursor_SortChanged() {
+    String cursor = KeysetCursor.after(List.of("b", 2)).encode(sort);
+    List<Sort.Order> otherSort = List.of(Sort.Order.asc("name"), Sort.Order.asc("id"));
+
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> KeysetCursor.decode(cursor, "cursor", otherSort));
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> KeysetCursor.decode("not a cursor", "cursor", sort));
+  }
+
+  @Test
+  public void testKeysetPageRequest_SqlPredicate() {
+    List<Sort.Order> uniform = List.of(Sort.Order.asc("name"), Sort.Order.asc("id"));
+    KeysetPageRequest.SqlPredicate rowValue = new KeysetPageRequest(uniform, KeysetCursor.after(List.of("b", 2)), 10)
+      .toSqlPredicate(property -> "t." + property);
+    assertEquals("((t.name, t.id) > (?, ?) or (t.name is null) or (t.name = ? and t.id is null))", rowValue.sql());
+    assertEquals(List.of("b", 2, "b"), rowValue.parameters());
+
+    KeysetPageRequest.SqlPredicate descending = new KeysetPageRequest(uniform, KeysetCursor.before(List.of("b", 2)), 10)
+      .toSqlPredicate(property -> property);
+    assertEquals("(name, id) < (?, ?)", descending.sql());
+    assertEquals(List.of("b", 2), descending.parameters());
+
+    KeysetPageRequest.SqlPredicate expanded = new KeysetPageRequest(sort, KeysetCursor.before(List.of("b", 2)), 10)
+      .toSqlPredicate(property -> property);
+    assertEquals("((name > ? or name is null) or (name = ? and id < ?))", expanded.sql());
+    assertEquals(List.of("b", "b", 2), expanded.parameters());
+
+    KeysetPageRequest.SqlPredicate none = new KeysetPageRequest(sort, null, 10).toSqlPredicate(property -> property);
+    assertEquals("1 = 1", none.sql());
+    assertEquals("name desc nulls first, id asc nulls last", new KeysetPageRequest(sort, null, 10).toSqlOrderBy(property -> property));
+  }
+
+  @Test
+  public void testKeysetPageRequest_NullKeys() {
+    List<Sort.Order> uniform = List.of(Sort.Order.asc("name"), Sort.Order.asc("id"));
+
+    // Nulls sort last ascending, so only rows with a null name and a greater id come after the cursor
+    KeysetPageRequest.SqlPredicate afterNull = new KeysetPageRequest(uniform, KeysetCursor.after(Arrays.asList(null, 2)), 10)
+      .toSqlPredicate(property -> property);
+    assertEquals("(name is null and (id > ? or id is null))", afterNull.sql());
+    assertEquals(List.of(2), afterNull.parameters());
+
+    // Nulls sort first descending, so all rows with a name come after the cursor
+    KeysetPageRequest.SqlPredicate beforeNull = new KeysetPageRequest(uniform, KeysetCursor.before(Arrays.asList(null, 2)), 10)
+      .toSqlPredicate(property -> property);
+    assertEquals("((name is not null) or (name is null and id < ?))", beforeNull.sql());
+    assertEquals(List.of(2), beforeNull.parameters());
+
+    List<Sort.Order> single = List.of(Sort.Order.asc("name"));
+    assertEquals("1 = 0", new KeysetPageRequest(single, KeysetCursor.after(Arrays.asList((Object) null)), 10)
+      .toSqlPredicate(property -> property).sql());
+  }
+
+  @Test
+  public void testKeysetHeaders_NullKey() {
+    // Execute
+    Pagination
+      .withKeyset(request, response, null, 1)
+      .sortBy(sort)
+      .paginate(pageRequest -> List.of(new Row(null, 1), new Row("b", 2)));
+
+    // Verify
+    KeysetCursor next = KeysetCursor.after(Arrays.asList(null, 1));
+    verify(response).setHeader("Next-Page", BASE_PATH + "?cursor=" + next.encode(sort));
+    assertEquals(next, KeysetCursor.decode(next.encode(sort), "cursor", sort));
+  }
+
+  @Test
+  public void testKeysetHeaders_EmptyCursorIsFirstPage() {
+    // Execute
+    Pagination
+      .withKeyset(request, response, "", 2)
+      .sortBy(sort)
+      .paginate(pageRequest -> {
+        assertEquals(null, pageRequest.cursor());
+        return List.of(new Row("c", 1));
+      });
+
+    // Verify
+    verify(response).setHeader("Current-Page", BASE_PATH);
+  }
+}
@@ -0,0 +1,102 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the five links of a paged response by concatenating the base path and url encoding the request
+ * parameters for each link (as the paginator did before {@link PageLinks}) with {@link PageLinks}.
+ *
+ * <p>Run with the test classpath, e.g. from the IDE through {@link #main(String[])}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageLinksBenchmark {
+  private static final String PAGE_NAME = "page";
+  private static final int PAGE = 3;
+
+  private final HttpServletRequest request = request(Map.of(
+    "page", new String[] {"3"},
+    "limit", new String[] {"20"},
+    "carrierBookingReference", new String[] {"ABC123"},
+    "eventCreatedDateTime:gte", new String[] {"2021-01-01T00:00:00Z"},
+    "sort", new String[] {"eventCreatedDateTime:DESC"}
+  ));
+
+  @Benchmark
+  public void concatenatedLinks(Blackhole blackhole) {
+    String basePath = request.getScheme() + "://" +
+      request.getServerName() + ":" + request.getServerPort() +
+      request.getRequestURI() + "?" + PAGE_NAME + "=";
+    blackhole.consume(basePath + PAGE + requestParameters(request));
+    blackhole.consume(basePath + "0" + requestParameters(request));
+    blackhole.consume(basePath + 10 + requestParameters(request));
+    blackhole.consume(basePath + (PAGE - 1) + requestParameters(request));
+    blackhole.consume(basePath + (PAGE + 1) + requestParameters(request));
+  }
+
+  @Benchmark
+  public void pageLinks(Blackhole blackhole) {
+    PageLinks links = new PageLinks(request, PAGE_NAME);
+    blackhole.consume(links.link(PAGE));
+    blackhole.consume(links.link(0));
+    blackhole.consume(links.link(10));
+    blackhole.consume(links.link(PAGE - 1));
+    blackhole.consume(links.link(PAGE + 1));
+  }
+
+  private static String requestParameters(HttpServletRequest request) {
+    StringBuilder parameters = new StringBuilder();
+    request.getParameterMap().forEach((String key, String[] values) -> {
+      if (!PAGE_NAME.equals(key)) {
+        String firstValue = (values != null && values.length > 0) ? values[0] : "";
+        parameters.append("&").append(URLEncoder.encode(key, Charset.defaultCharset()))
+          .append("=").append(URLEncoder.encode(firstValue, Charset.defaultCharset()));
+      }
+    });
+    return parameters.toString();
+  }
+
+  /**
+   * A request with fixed values, so the benchmark does not measure a mocking framework.
+   */
+  private static HttpServletRequest request(Map<String, String[]> parameters) {
+    Map<String, String[]> parameterMap = new LinkedHashMap<>(parameters);
+    return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+      new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> switch (method.getName()) {
+        case "getScheme" -> "http";
+        case "getServerName" -> "localhost";
+        case "getServerPort" -> 9090;
+        case "getRequestURI" -> "/v2/events";
+        case "getParameterMap" -> parameterMap;
+        default -> throw new UnsupportedOperationException(method.getName());
+      });
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PageLinksBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,67 @@
+package org.dcsa.skernel.infrastructure.pagination;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+public class PageLinksTest {
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+
+  @BeforeEach
+  public void resetMocks() {
+    reset(request);
+
+    when(request.getScheme()).thenReturn("http");
+    when(request.getServerName()).thenReturn("localhost");
+    when(request.getServerPort()).thenReturn(9090);
+    when(request.getRequestURI()).thenReturn("/vx/myService");
+  }
+
+  @Test
+  public void testLinks_ReuseBuffer() {
+    // Setup
+    Map<String, String[]> parameters = new LinkedHashMap<>();
+    parameters.put("page", new String[] {"3"});
+    parameters.put("status", new String[] {"RECE", "DRFT"});
+    parameters.put("empty", new String[0]);
+    when(request.getParameterMap()).thenReturn(parameters);
+
+    // Execute
+    PageLinks links = new PageLinks(request, "page");
+
+    // Verify
+    assertEquals("http://localhost:9090/vx/myService?page=2&status=RECE&empty=", links.link(2));
+    assertEquals("http://localhost:9090/vx/myService?page=10&status=RECE&empty=", links.link(10));
+    assertEquals("http://localhost:9090/vx/myService?page=abc&status=RECE&empty=", links.link("abc"));
+    assertEquals("http://localhost:9090/vx/myService?status=RECE&empty=", links.linkWithoutPage());
+    assertEquals("http://localhost:9090/vx/myService?page=0&status=RECE&empty=", links.link(0));
+  }
+
+  @Test
+  public void testLinks_NoParameters() {
+    PageLinks links = new PageLinks(request, "page");
+
+    assertEquals("http://localhost:9090/vx/myService?page=1", links.link(1));
+    assertEquals("http://localhost:9090/vx/myService", links.linkWithoutPage());
+  }
+
+  @Test
+  public void testAppendEncoded_AsUrlEncoder() {
+    Charset charset = Charset.defaultCharset();
+    for (String value : new String[] {"", "plain-value_1.*", "a b", "x&y=z", "2021-01-01T00:00:00+01:00", "\u00e6\u00f8\u00e5", "~!'()"}) {
+      StringBuilder sb = new StringBuilder();
+      PageLinks.appendEncoded(sb, value, charset);
+      assertEquals(URLEncoder.encode(value, charset), sb.toString());
+    }
+  }
+}
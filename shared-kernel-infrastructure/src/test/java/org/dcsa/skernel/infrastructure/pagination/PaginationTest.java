@@ -1,20 +1,39 @@
 package org.dcsa.skernel.infrastructure.pagination;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dcsa.skernel.infrastructure.pagination.Pagination.LinkHeaders;
 import org.dcsa.skernel.infrastructure.pagination.Pagination.PagingNames;
+import org.dcsa.skernel.infrastructure.pagination.Pagination.StreamFormat;
 import org.dcsa.skernel.infrastructure.sorting.Sorter.SortableFields;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -160,6 +179,178 @@ public class PaginationTest {
     verify(response).setHeader("Previous-Page", "http://localhost:9090/vx/myService?poff=0" + parameters);
   }
 
+  @Test
+  public void testSetPageHeaders_SliceWithoutTotal() {
+    // Execute
+    Pagination
+      .with(request, response, 1, 10)
+      .sortBy(defaultSort)
+      .paginateSlice(pageRequest ->
+        new SliceImpl<>(List.of(""), pageRequest, true)
+      );
+
+    // Verify
+    verify(response).setHeader("Current-Page", "http://localhost:9090/vx/myService?page=1");
+    verify(response).setHeader("First-Page", "http://localhost:9090/vx/myService?page=0");
+    verify(response).setHeader("Next-Page", "http://localhost:9090/vx/myService?page=2");
+    verify(response).setHeader("Previous-Page", "http://localhost:9090/vx/myService?page=0");
+    verify(response, never()).setHeader(eq("Last-Page"), any());
+  }
+
+  @Test
+  public void testSetPageHeaders_LookaheadWithTotal() {
+    // Execute
+    List<String> result = Pagination
+      .with(request, response, 1, 2)
+      .sortBy(defaultSort)
+      .withTotalElements(() -> 9)
+      .paginateLookahead(pageRequest -> {
+        assertEquals(PageRequest.of(1, 2, Sort.by(defaultSort)), pageRequest);
+        return List.of("a", "b", "c");
+      });
+
+    // Verify
+    assertEquals(List.of("a", "b"), result);
+    verify(response).setHeader("Last-Page", "http://localhost:9090/vx/myService?page=4");
+    verify(response).setHeader("Next-Page", "http://localhost:9090/vx/myService?page=2");
+  }
+
+  @Test
+  public void testSetPageHeaders_LookaheadWithLowEstimate() {
+    // Execute
+    Pagination
+      .with(request, response, 3, 2)
+      .sortBy(defaultSort)
+      .withTotalElements(() -> 1)
+      .paginateLookahead(pageRequest -> List.of("a"));
+
+    // Verify
+    verify(response).setHeader("Last-Page", "http://localhost:9090/vx/myService?page=3");
+    verify(response, never()).setHeader(eq("Next-Page"), any());
+  }
+
+  @Test
+  public void testSetPageHeaders_LinkHeader() {
+    // Execute
+    Pagination
+      .with(request, response, 1, 10)
+      .sortBy(defaultSort)
+      .withLinkHeaders(LinkHeaders.RFC_8288)
+      .paginate(pageRequest ->
+        new PagedResult<>(new PageImpl<>(List.of(""), Pageable.unpaged(), 3))
+      );
+
+    // Verify
+    verify(response).setHeader("Link",
+      "<http://localhost:9090/vx/myService?page=1>; rel=\"self\", "
+        + "<http://localhost:9090/vx/myService?page=0>; rel=\"first\", "
+        + "<http://localhost:9090/vx/myService?page=2>; rel=\"last\", "
+        + "<http://localhost:9090/vx/myService?page=0>; rel=\"prev\", "
+        + "<http://localhost:9090/vx/myService?page=2>; rel=\"next\"");
+    verify(response, never()).setHeader(eq("Current-Page"), any());
+    verify(response, never()).setHeader(eq("Next-Page"), any());
+  }
+
+  @Test
+  public void testPaginateStream_JsonArray() throws IOException {
+    List<PageRequest> pageRequests = new ArrayList<>();
+
+    // Execute
+    ResponseEntity<StreamingResponseBody> result = Pagination
+      .with(request, response, 1, 2)
+      .sortBy(defaultSort)
+      .withLinkHeaders(LinkHeaders.BOTH)
+      .paginateStream(pageRequest -> {
+        pageRequests.add(pageRequest);
+        return rows(pageRequest, "a", "b", "c", "d", "e");
+      }, new ObjectMapper(), StreamFormat.JSON_ARRAY, TransactionOperations.withoutTransaction());
+
+    // Verify
+    verify(response, never()).setHeader(any(), any());
+    assertEquals(MediaType.APPLICATION_JSON, result.getHeaders().getContentType());
+    assertEquals("[\"c\",\"d\"]", write(result.getBody()));
+    assertEquals(List.of(PageRequest.of(4, 1, Sort.by(defaultSort)), PageRequest.of(1, 2, Sort.by(defaultSort))), pageRequests);
+    verify(response).setHeader("Next-Page", "http://localhost:9090/vx/myService?page=2");
+    verify(response).setHeader(eq("Link"), any());
+  }
+
+  @Test
+  public void testPaginateStream_Ndjson() throws IOException {
+    // Execute
+    ResponseEntity<StreamingResponseBody> result = Pagination
+      .with(request, response, 0, 2)
+      .sortBy(defaultSort)
+      .paginateStream(pageRequest -> rows(pageRequest, List.of(1), List.of(2)),
+        new ObjectMapper(), StreamFormat.NDJSON, TransactionOperations.withoutTransaction());
+
+    // Verify
+    assertEquals(MediaType.APPLICATION_NDJSON, result.getHeaders().getContentType());
+    assertEquals("[1]\n[2]\n", write(result.getBody()));
+    verify(response).setHeader("Current-Page", "http://localhost:9090/vx/myService?page=0");
+    verify(response, never()).setHeader(eq("Next-Page"), any());
+    verify(response, never()).setHeader(eq("Link"), any());
+  }
+
+  @Test
+  public void testPaginateStream_ReadsOnlyPageRows() throws IOException {
+    AtomicInteger read = new AtomicInteger();
+    List<String> detached = new ArrayList<>();
+
+    // Execute
+    ResponseEntity<StreamingResponseBody> result = Pagination
+      .with(request, response, 0, 2)
+      .sortBy(defaultSort)
+      .paginateStream(pageRequest -> Stream.iterate((int) pageRequest.getOffset() + 1, i -> i + 1)
+          .peek(i -> read.incrementAndGet())
+          .map(String::valueOf),
+        new ObjectMapper(), StreamFormat.NDJSON, TransactionOperations.withoutTransaction(), detached::add);
+
+    // Verify
+    assertEquals("\"1\"\n\"2\"\n", write(result.getBody()));
+    // The row after the page is read from the lookahead stream, the page stream is not read past the page
+    assertEquals(3, read.get());
+    assertEquals(List.of("1", "2"), detached);
+    verify(response).setHeader("Next-Page", "http://localhost:9090/vx/myService?page=1");
+  }
+
+  @Test
+  public void testPaginateStream_WritesWhileReading() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String padding = "x".repeat(1000);
+    AtomicInteger writtenBeforeLastRow = new AtomicInteger(-1);
+
+    // Execute
+    ResponseEntity<StreamingResponseBody> result = Pagination
+      .with(request, response, 0, 100)
+      .sortBy(defaultSort)
+      .paginateStream(pageRequest -> IntStream.range((int) pageRequest.getOffset(), 100)
+          .limit(pageRequest.getPageSize() + 1L)
+          .peek(i -> {
+            if (i == 99) {
+              writtenBeforeLastRow.set(out.size());
+            }
+          })
+          .mapToObj(i -> padding + i),
+        new ObjectMapper(), StreamFormat.JSON_ARRAY, TransactionOperations.withoutTransaction());
+    result.getBody().writeTo(out);
+
+    // Verify
+    assertTrue(writtenBeforeLastRow.get() > 0, "Nothing was written before the stream was exhausted");
+    assertTrue(out.size() > 100 * padding.length());
+    verify(response, never()).setHeader(eq("Next-Page"), any());
+  }
+
+  @SafeVarargs
+  private static <T> Stream<T> rows(PageRequest pageRequest, T... rows) {
+    return Arrays.stream(rows).skip(pageRequest.getOffset()).limit(pageRequest.getPageSize() + 1L);
+  }
+
+  private String write(StreamingResponseBody body) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    body.writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
   // With a sorted map we know the order of elements
   private SortedMap<String, String[]> sortedMapOf(String... s) {
     SortedMap<String, String[]> m = new TreeMap<>();
@@ -2,6 +2,7 @@ package org.dcsa.skernel.infrastructure.sorting;
 
 import org.dcsa.skernel.errors.exceptions.ConcreteRequestErrorMessageException;
 import org.dcsa.skernel.infrastructure.pagination.Cursor;
+import org.dcsa.skernel.infrastructure.sorting.Sorter.SortableFields;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Sort;
@@ -9,6 +10,8 @@ import org.springframework.data.domain.Sort;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class SorterTest {
@@ -74,4 +77,75 @@ class SorterTest {
       returnedException.getMessage()
     );
   }
+
+  @Test
+  void testParseSort_WithSortableFields() {
+    List<Sort.Order> defaultSort = List.of(Sort.Order.asc("id"));
+    SortableFields sortableFields = SortableFields.of("id", "name").addMapping("createdDateTime", "created");
+
+    List<Sort.Order> sortList = Sorter.parseSort(" createdDateTime:desc , name,", defaultSort, sortableFields);
+
+    assertEquals(List.of(Sort.Order.desc("created"), Sort.Order.asc("name"), Sort.Order.asc("id")), sortList);
+    // Each caller gets its own copy of the cached sort, which it may append to
+    sortList.add(Sort.Order.asc("name"));
+    assertEquals(List.of(Sort.Order.desc("created"), Sort.Order.asc("name"), Sort.Order.asc("id")),
+      Sorter.parseSort(" createdDateTime:desc , name,", defaultSort, sortableFields));
+    assertEquals(defaultSort, Sorter.parseSort(",,", defaultSort, sortableFields));
+  }
+
+  @Test
+  void testParseSort_WithMappingDoesNotChangeSortableFields() {
+    List<Sort.Order> defaultSort = List.of(Sort.Order.asc("id"));
+    SortableFields sortableFields = SortableFields.of("id");
+    SortableFields withName = sortableFields.withMapping("name", "name");
+
+    assertEquals(List.of(Sort.Order.desc("name"), Sort.Order.asc("id")), Sorter.parseSort("name:DESC", defaultSort, withName));
+    Exception returnedException =
+        assertThrows(
+            ConcreteRequestErrorMessageException.class,
+            () -> Sorter.parseSort("name:DESC", defaultSort, sortableFields));
+    assertEquals(
+      "Cannot sort on 'name'. This implementation supports the following sortable fields: id",
+      returnedException.getMessage()
+    );
+  }
+
+  @Test
+  void testParseSort_AddMappingChangesSortableFields() {
+    List<Sort.Order> defaultSort = List.of(Sort.Order.asc("id"));
+    SortableFields sortableFields = SortableFields.of("id", "created");
+    assertEquals(List.of(Sort.Order.asc("created"), Sort.Order.asc("id")), Sorter.parseSort("created", defaultSort, sortableFields));
+
+    assertSame(sortableFields, sortableFields.addMapping("created", "createdDateTime"));
+
+    assertEquals(List.of(Sort.Order.asc("createdDateTime"), Sort.Order.asc("id")), Sorter.parseSort("created", defaultSort, sortableFields));
+    assertEquals(List.of("createdDateTime", "id"), sortableFields.databaseFields());
+  }
+
+  @Test
+  void testParseSort_CacheEvictsLeastRecentlyUsed() {
+    List<Sort.Order> defaultSort = List.of(Sort.Order.asc("id"));
+    SortableFields sortableFields = SortableFields.of("id", "name");
+    List<Sort.Order> used = sortableFields.parseSort("name", defaultSort);
+    List<Sort.Order> unused = sortableFields.parseSort("id", defaultSort);
+
+    // Spaces make distinct sort parameters for the same sort
+    for (int i = 1; i <= SortableFields.MAX_CACHED_SORTS; i++) {
+      sortableFields.parseSort(" ".repeat(i) + "id", defaultSort);
+      assertSame(used, sortableFields.parseSort("name", defaultSort));
+    }
+    List<Sort.Order> parsedAgain = sortableFields.parseSort("id", defaultSort);
+    assertEquals(unused, parsedAgain);
+    assertNotSame(unused, parsedAgain);
+  }
+
+  @Test
+  void testParseSort_WithEmptyField() {
+    List<Sort.Order> defaultSort = List.of(Sort.Order.asc("id"));
+    SortableFields sortableFields = SortableFields.of("id");
+
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> Sorter.parseSort("", defaultSort, sortableFields));
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> Sorter.parseSort("id,,id", defaultSort, sortableFields));
+    assertThrows(ConcreteRequestErrorMessageException.class, () -> Sorter.parseSort("id:ASC:DESC", defaultSort, sortableFields));
+  }
 }